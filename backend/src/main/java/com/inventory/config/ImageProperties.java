@@ -0,0 +1,52 @@
+package com.inventory.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Image processing settings. Override with e.g. app.images.card.width=600.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.images")
+@Data
+public class ImageProperties {
+    
+    // Fixed variants generated for every product image
+    private Variant thumb = new Variant(200, 0.75f);
+    private Variant card = new Variant(480, 0.8f);
+    private Variant full = new Variant(1200, 0.85f);
+    
+    // Largest canvas (width x height) any decoder may allocate; larger images are rejected
+    private long maxPixels = 40_000_000L;
+    
+    // Bounded pool for resize and encode work
+    private int workers = 2;
+    private int queueCapacity = 500;
+    
+    // On-demand resizing (?w=) is limited to these widths so the cache stays bounded
+    private List<Integer> resizeWidths = new ArrayList<>(List.of(160, 320, 480, 640, 960, 1280));
+    private float resizeQuality = 0.8f;
+    private long resizeCacheMaxBytes = 512L * 1024 * 1024;
+    private long resizeTimeoutMs = 10000;
+    
+    // Avatars are cropped square and stored at each of these sizes; the largest is the avatarUrl
+    private List<Integer> avatarSizes = new ArrayList<>(List.of(64, 128, 256));
+    private float avatarQuality = 0.85f;
+    private int avatarWorkers = 2;
+    private int avatarQueueCapacity = 16;
+    private long avatarTimeoutMs = 10000;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Variant {
+        private int width;
+        private float quality;
+    }
+}
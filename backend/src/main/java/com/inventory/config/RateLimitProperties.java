@@ -0,0 +1,57 @@
+package com.inventory.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Limits for /api/auth/** routes, keyed by the last path segment (e.g. "login").
+ * Override with e.g. app.rate-limit.ip.login.capacity=50.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.rate-limit")
+@Data
+public class RateLimitProperties {
+    
+    private boolean enabled = true;
+    
+    // Upper bound on tracked keys; beyond this the least recently used refilled buckets are
+    // evicted, and new keys are rejected while every bucket is still throttling
+    private int maxKeys = 100_000;
+    
+    // Reverse proxies (exact addresses) whose X-Forwarded-For header is trusted for per-IP
+    // limits; with none configured every request is keyed on the socket address
+    private List<String> trustedProxies = new ArrayList<>();
+    
+    private Map<String, Limit> ip = new HashMap<>(Map.of(
+            "login", new Limit(20, Duration.ofMinutes(1)),
+            "register", new Limit(5, Duration.ofMinutes(1)),
+            "forgot-password", new Limit(5, Duration.ofMinutes(1)),
+            "validate-otp", new Limit(20, Duration.ofMinutes(1)),
+            "reset-password", new Limit(10, Duration.ofMinutes(1)),
+            "refresh", new Limit(30, Duration.ofMinutes(1))
+    ));
+    
+    private Map<String, Limit> email = new HashMap<>(Map.of(
+            "login", new Limit(10, Duration.ofMinutes(1)),
+            "forgot-password", new Limit(3, Duration.ofMinutes(15)),
+            "validate-otp", new Limit(10, Duration.ofMinutes(5)),
+            "reset-password", new Limit(5, Duration.ofMinutes(5))
+    ));
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        private int capacity;
+        private Duration period;
+    }
+}
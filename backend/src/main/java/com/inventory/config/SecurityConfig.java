@@ -1,8 +1,14 @@
 package com.inventory.config;
 
 import com.inventory.filter.JwtAuthenticationFilter;
+import com.inventory.filter.RateLimitFilter;
+import com.inventory.util.BoundedPasswordEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -10,10 +16,12 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -27,17 +35,74 @@ import java.util.List;
 @EnableMethodSecurity
 public class SecurityConfig {
     
+    private static final Logger log = LoggerFactory.getLogger(SecurityConfig.class);
+    
+    private static final int MIN_BCRYPT_STRENGTH = 10;
+    private static final int MAX_BCRYPT_STRENGTH = 14;
+    
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
     private final UserDetailsService userDetailsService;
+    private final UserDetailsPasswordService userDetailsPasswordService;
+    
+    // A positive value pins the cost; otherwise it is calibrated to the target latency on startup
+    @Value("${app.security.bcrypt.strength:0}")
+    private int bcryptStrength;
+    
+    @Value("${app.security.bcrypt.target-ms:250}")
+    private long bcryptTargetMs;
+    
+    @Value("${app.security.hashing.threads:2}")
+    private int hashingThreads;
     
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter, UserDetailsService userDetailsService) {
+    @Value("${app.security.hashing.queue-capacity:64}")
+    private int hashingQueueCapacity;
+    
+    @Value("${app.security.hashing.timeout-ms:5000}")
+    private long hashingTimeoutMs;
+    
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter, RateLimitFilter rateLimitFilter,
+                          UserDetailsService userDetailsService, UserDetailsPasswordService userDetailsPasswordService) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.rateLimitFilter = rateLimitFilter;
         this.userDetailsService = userDetailsService;
+        this.userDetailsPasswordService = userDetailsPasswordService;
     }
     
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int strength = bcryptStrength > 0 ? bcryptStrength : calibrateBcryptStrength();
+        log.info("Using BCrypt strength {}", strength);
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength),
+                hashingThreads, hashingQueueCapacity, hashingTimeoutMs);
+    }
+    
+    /**
+     * Picks the highest cost factor whose hash time stays within the target latency.
+     * Each step doubles the work, so calibration stops as soon as the next step would overshoot.
+     */
+    private int calibrateBcryptStrength() {
+        // Warm up so the measurement is not dominated by JIT compilation
+        BCryptPasswordEncoder warmup = new BCryptPasswordEncoder(4);
+        for (int i = 0; i < 20; i++) {
+            warmup.encode("calibration");
+        }
+        
+        int chosen = MIN_BCRYPT_STRENGTH;
+        for (int strength = MIN_BCRYPT_STRENGTH; strength <= MAX_BCRYPT_STRENGTH; strength++) {
+            long start = System.nanoTime();
+            new BCryptPasswordEncoder(strength).encode("calibration");
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            
+            if (elapsedMs > bcryptTargetMs) {
+                break;
+            }
+            chosen = strength;
+            if (elapsedMs * 2 > bcryptTargetMs) {
+                break;
+            }
+        }
+        return chosen;
     }
     
     @Bean
@@ -45,6 +110,8 @@ public class SecurityConfig {
         DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
         authenticationProvider.setUserDetailsService(userDetailsService);
         authenticationProvider.setPasswordEncoder(passwordEncoder);
+        // Re-hashes passwords stored with an outdated cost after a successful login
+        authenticationProvider.setUserDetailsPasswordService(userDetailsPasswordService);
         
         return new ProviderManager(authenticationProvider);
     }
@@ -55,6 +122,8 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            // 401 rather than the default 403, so clients know to refresh an expired access token
+            .exceptionHandling(e -> e.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/api/products/**").permitAll()
@@ -64,7 +133,8 @@ public class SecurityConfig {
                 .requestMatchers("/api/customer/**").hasRole("CUSTOMER")
                 .anyRequest().authenticated()
             )
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class);
         
         return http.build();
     }
@@ -0,0 +1,310 @@
+package com.inventory.controller;
+
+import com.inventory.service.FileStorageService;
+import com.inventory.service.ImageResizeService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Serves uploaded images with validators and cache hints. Content-addressed blobs and
+ * versioned avatars get a year-long immutable Cache-Control, blobs with their hash as a strong
+ * ETag; other files get an mtime/size ETag and must be revalidated. Single byte ranges and precompressed .br/.gz
+ * siblings are supported, and bodies go out through Tomcat's sendfile when available.
+ */
+@RestController
+@RequestMapping("/api/images")
+@CrossOrigin(origins = "*")
+public class ImageController {
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "public, no-cache";
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    static final long[] UNSATISFIABLE = new long[0];
+
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "jpg", "image/jpeg",
+            "jpeg", "image/jpeg",
+            "png", "image/png",
+            "gif", "image/gif",
+            "webp", "image/webp",
+            "svg", "image/svg+xml",
+            "avif", "image/avif"
+    );
+
+    private final FileStorageService fileStorageService;
+    private final ImageResizeService imageResizeService;
+
+    public ImageController(FileStorageService fileStorageService, ImageResizeService imageResizeService) {
+        this.fileStorageService = fileStorageService;
+        this.imageResizeService = imageResizeService;
+    }
+
+    /**
+     * With {@code ?w=} the image is served resized to that width (allowlisted widths only,
+     * e.g. for srcset); the result shares the source's caching policy.
+     */
+    @GetMapping("/**")
+    public void serveImage(@RequestParam(value = "w", required = false) Integer width,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String imageUrl = request.getServletPath();
+        // Dot-prefixed entries are internal: the resize cache and in-progress uploads
+        if (imageUrl.contains("/.")) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        Path file;
+        try {
+            file = fileStorageService.resolveImagePath(imageUrl);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        if (!Files.isRegularFile(file)) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        if (width != null && !imageResizeService.isAllowedWidth(width)) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Unsupported width");
+            return;
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        String etag = etagFor(imageUrl, file, attributes);
+        FileChannel resized = null;
+        if (width != null) {
+            etag = etag.substring(0, etag.length() - 1) + "-w" + width + "\"";
+            if (!matchesEtag(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+                try {
+                    resized = imageResizeService.open(file, width);
+                } catch (IOException e) {
+                    response.sendError(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value(), "Image cannot be resized");
+                    return;
+                }
+            }
+        }
+
+        try (FileChannel channel = resized) {
+            serve(request, response, imageUrl, file, attributes, etag, channel);
+        }
+    }
+
+    /**
+     * Writes the headers and body. {@code resized} is an already opened resize of {@code file},
+     * or null to serve the file itself.
+     */
+    private void serve(HttpServletRequest request, HttpServletResponse response, String imageUrl, Path file,
+                       BasicFileAttributes attributes, String etag, FileChannel resized) throws IOException {
+        // Prefer a precompressed sibling; byte ranges are only honoured on the identity encoding.
+        // Each encoding is a different representation, so it gets its own strong ETag.
+        Path body = file;
+        long length = resized != null ? resized.size() : attributes.size();
+        Path encoded = resized == null ? precompressedVariant(request.getHeader(HttpHeaders.ACCEPT_ENCODING), file, response) : null;
+        if (encoded != null) {
+            body = encoded;
+            length = Files.size(encoded);
+            etag = withEncoding(etag, encoded);
+        }
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, fileStorageService.isImmutableUrl(imageUrl) ? IMMUTABLE : REVALIDATE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (matchesEtag(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        response.setContentType(resized != null ? "image/jpeg" : contentTypeFor(file));
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = encoded == null ? request.getHeader(HttpHeaders.RANGE) : null;
+        if (rangeHeader != null && ifRangeMatches(request.getHeader(HttpHeaders.IF_RANGE), etag)) {
+            long[] range = parseRange(rangeHeader, length);
+            if (range == UNSATISFIABLE) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            if (range != null) {
+                start = range[0];
+                end = range[1];
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+        if (resized != null) {
+            // Cache files can be evicted at any time, so they are never handed to sendfile by name
+            copy(resized, response, start, count);
+        } else {
+            transfer(request, response, body, start, count);
+        }
+    }
+
+    private String etagFor(String imageUrl, Path file, BasicFileAttributes attributes) {
+        String filename = file.getFileName().toString();
+        // Originals sit directly in their shard directory and are named by their SHA-256
+        if (fileStorageService.isBlobUrl(imageUrl)
+                && file.getParent().getParent().equals(fileStorageService.getBlobRoot().toAbsolutePath().normalize())) {
+            int dot = filename.indexOf('.');
+            return "\"" + (dot > 0 ? filename.substring(0, dot) : filename) + "\"";
+        }
+        return "\"" + Long.toHexString(attributes.lastModifiedTime().toMillis()) + "-" + Long.toHexString(attributes.size()) + "\"";
+    }
+
+    static String withEncoding(String etag, Path encoded) {
+        String suffix = encoded.getFileName().toString().endsWith(".br") ? "-br" : "-gzip";
+        return etag.substring(0, etag.length() - 1) + suffix + "\"";
+    }
+
+    static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean ifRangeMatches(String ifRange, String etag) {
+        // An If-Range date or a stale ETag means the client's partial copy may be outdated
+        return ifRange == null || ifRange.trim().equals(etag);
+    }
+
+    /**
+     * Parses a single "bytes=" range into inclusive bounds. Returns null when the header
+     * should be ignored (malformed or multiple ranges), which means serving the whole file.
+     */
+    static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // Suffix range: the last N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) {
+                    return UNSATISFIABLE;
+                }
+                return new long[]{Math.max(0, length - suffix), length - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            if (start >= length) {
+                return UNSATISFIABLE;
+            }
+            if (end < start) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Path precompressedVariant(String acceptEncoding, Path file, HttpServletResponse response) {
+        Path brotli = file.resolveSibling(file.getFileName() + ".br");
+        Path gzip = file.resolveSibling(file.getFileName() + ".gz");
+        boolean hasBrotli = Files.isRegularFile(brotli);
+        boolean hasGzip = Files.isRegularFile(gzip);
+        if (!hasBrotli && !hasGzip) {
+            return null;
+        }
+
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String accepted = acceptEncoding != null ? acceptEncoding.toLowerCase(Locale.ROOT) : "";
+        if (hasBrotli && accepted.contains("br")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "br");
+            return brotli;
+        }
+        if (hasGzip && accepted.contains("gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return gzip;
+        }
+        return null;
+    }
+
+    private static String contentTypeFor(Path file) throws IOException {
+        String filename = file.getFileName().toString();
+        int dot = filename.lastIndexOf('.');
+        String type = dot >= 0 ? CONTENT_TYPES.get(filename.substring(dot + 1).toLowerCase(Locale.ROOT)) : null;
+        if (type == null) {
+            type = Files.probeContentType(file);
+        }
+        return type != null ? type : "application/octet-stream";
+    }
+
+    /**
+     * Hands the file region to Tomcat's sendfile when the connector supports it, so the bytes
+     * go from the page cache to the socket without being copied through the JVM. Otherwise
+     * falls back to FileChannel.transferTo.
+     */
+    private static void transfer(HttpServletRequest request, HttpServletResponse response,
+                                 Path file, long start, long count) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            copy(channel, response, start, count);
+        }
+    }
+
+    private static void copy(FileChannel channel, HttpServletResponse response, long start, long count) throws IOException {
+        WritableByteChannel output = Channels.newChannel(response.getOutputStream());
+        long position = start;
+        long remaining = count;
+        while (remaining > 0) {
+            long written = channel.transferTo(position, remaining, output);
+            if (written <= 0) {
+                break;
+            }
+            position += written;
+            remaining -= written;
+        }
+    }
+}
@@ -1,13 +1,13 @@
 package com.inventory.controller;
 
+import com.inventory.dto.CursorPageResponse;
 import com.inventory.dto.NotificationDto;
+import com.inventory.entity.Notification;
 import com.inventory.service.NotificationService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/notifications")
 @CrossOrigin(origins = "*")
@@ -21,8 +21,12 @@ public class NotificationController {
     }
     
     @GetMapping
-    public ResponseEntity<List<NotificationDto>> getUserNotifications() {
-        return ResponseEntity.ok(notificationService.getUserNotifications());
+    public ResponseEntity<CursorPageResponse<NotificationDto>> getUserNotifications(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Notification.NotificationType type,
+            @RequestParam(required = false) Boolean read) {
+        return ResponseEntity.ok(notificationService.getUserNotifications(cursor, size, type, read));
     }
     
     @GetMapping("/unread-count")
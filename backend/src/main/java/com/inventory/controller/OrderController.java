@@ -2,6 +2,7 @@ package com.inventory.controller;
 
 import com.inventory.dto.*;
 import com.inventory.entity.Order;
+import com.inventory.service.IdempotentCheckoutService;
 import com.inventory.service.OrderService;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
@@ -21,16 +22,20 @@ import java.util.List;
 public class OrderController {
     
     private final OrderService orderService;
+    private final IdempotentCheckoutService idempotentCheckoutService;
     
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, IdempotentCheckoutService idempotentCheckoutService) {
         this.orderService = orderService;
+        this.idempotentCheckoutService = idempotentCheckoutService;
     }
     
     // Customer endpoints
     @PostMapping("/customer/orders/checkout")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<OrderDto> checkout(@Valid @RequestBody CheckoutRequest request) {
-        return ResponseEntity.ok(orderService.checkout(request));
+    public ResponseEntity<OrderDto> checkout(
+            @Valid @RequestBody CheckoutRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return ResponseEntity.ok(idempotentCheckoutService.checkout(request, idempotencyKey));
     }
     
     @GetMapping("/customer/orders")
@@ -39,6 +44,15 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getCustomerOrders());
     }
     
+    @GetMapping("/customer/orders/history")
+    @PreAuthorize("hasRole('CUSTOMER')")
+    public ResponseEntity<CursorPageResponse<OrderDto>> getCustomerOrderHistory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Order.OrderStatus status) {
+        return ResponseEntity.ok(orderService.getCustomerOrderHistory(cursor, size, status));
+    }
+    
     @GetMapping("/customer/orders/{id}")
     @PreAuthorize("hasRole('CUSTOMER')")
     public ResponseEntity<OrderDto> getCustomerOrder(@PathVariable Long id) {
@@ -58,12 +72,28 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getStaffOrders());
     }
     
+    @GetMapping("/staff/orders/history")
+    @PreAuthorize("hasAnyRole('STAFF', 'ADMIN')")
+    public ResponseEntity<CursorPageResponse<OrderDto>> getStaffOrderHistory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Order.OrderStatus status) {
+        return ResponseEntity.ok(orderService.getStaffOrderHistory(cursor, size, status));
+    }
+    
     @GetMapping("/staff/orders/{id}")
     @PreAuthorize("hasAnyRole('STAFF', 'ADMIN')")
     public ResponseEntity<OrderDto> getStaffOrder(@PathVariable Long id) {
         return ResponseEntity.ok(orderService.getOrderById(id));
     }
     
+    @PutMapping("/staff/orders/status")
+    @PreAuthorize("hasAnyRole('STAFF', 'ADMIN')")
+    public ResponseEntity<List<OrderDto>> bulkUpdateOrderStatus(
+            @Valid @RequestBody BulkUpdateOrderStatusRequest request) {
+        return ResponseEntity.ok(orderService.bulkUpdateOrderStatus(request));
+    }
+    
     @PutMapping("/staff/orders/{id}/status")
     @PreAuthorize("hasAnyRole('STAFF', 'ADMIN')")
     public ResponseEntity<OrderDto> updateOrderStatus(
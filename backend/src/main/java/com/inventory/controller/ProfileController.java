@@ -5,7 +5,7 @@ import com.inventory.dto.ProfileResponse;
 import com.inventory.dto.UpdateProfileRequest;
 import com.inventory.dto.UpdateSettingsRequest;
 import com.inventory.dto.UserSettingsDto;
-import com.inventory.service.FileStorageService;
+import com.inventory.exception.ServiceBusyException;
 import com.inventory.service.ProfileService;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
@@ -20,11 +20,9 @@ import org.springframework.web.multipart.MultipartFile;
 public class ProfileController {
 
     private final ProfileService profileService;
-    private final FileStorageService fileStorageService;
 
-    public ProfileController(ProfileService profileService, FileStorageService fileStorageService) {
+    public ProfileController(ProfileService profileService) {
         this.profileService = profileService;
-        this.fileStorageService = fileStorageService;
     }
 
     @GetMapping
@@ -50,13 +48,15 @@ public class ProfileController {
     
     /**
      * Upload profile avatar image
-     * Similar to product image upload - saves file and returns URL
+     * Normalized to square JPEGs at the standard sizes; returns the profile with their URLs
      */
     @PutMapping("/avatar")
     public ResponseEntity<ProfileResponse> uploadAvatar(@RequestParam("avatar") MultipartFile file) {
         try {
-            ProfileResponse response = profileService.uploadAvatar(file, fileStorageService);
+            ProfileResponse response = profileService.uploadAvatar(file);
             return ResponseEntity.ok(response);
+        } catch (ServiceBusyException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Failed to upload avatar: " + e.getMessage(), e);
         }
@@ -1,13 +1,11 @@
 package com.inventory.controller;
 
-import com.inventory.entity.User;
-import com.inventory.repository.UserRepository;
+import com.inventory.service.CurrentUserService;
 import com.inventory.service.ReportService;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
@@ -20,11 +18,11 @@ import com.lowagie.text.DocumentException;
 public class ReportController {
     
     private final ReportService reportService;
-    private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
     
-    public ReportController(ReportService reportService, UserRepository userRepository) {
+    public ReportController(ReportService reportService, CurrentUserService currentUserService) {
         this.reportService = reportService;
-        this.userRepository = userRepository;
+        this.currentUserService = currentUserService;
     }
     
     // Admin Reports
@@ -105,12 +103,7 @@ public class ReportController {
     @GetMapping("/staff/reports/orders")
     @PreAuthorize("hasAnyRole('STAFF', 'ADMIN')")
     public ResponseEntity<byte[]> generateStaffOrderReport() throws IOException {
-        org.springframework.security.core.Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        User staff = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        byte[] report = reportService.generateStaffActivityReportExcel(staff.getId());
+        byte[] report = reportService.generateStaffActivityReportExcel(currentUserService.getCurrentUserId());
         
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=my_orders_report.xlsx")
@@ -123,21 +116,18 @@ public class ReportController {
     @PreAuthorize("hasRole('CUSTOMER')")
     public ResponseEntity<byte[]> generateOrderHistory(
             @RequestParam(defaultValue = "pdf") String format) throws IOException, DocumentException {
-        org.springframework.security.core.Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        Long userId = currentUserService.getCurrentUserId();
         
         byte[] report;
         String contentType;
         String filename;
         
         if ("excel".equalsIgnoreCase(format)) {
-            report = reportService.generateOrderHistoryExcel(user.getId());
+            report = reportService.generateOrderHistoryExcel(userId);
             contentType = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
             filename = "order_history.xlsx";
         } else {
-            report = reportService.generateOrderHistoryPDF(user.getId());
+            report = reportService.generateOrderHistoryPDF(userId);
             contentType = "application/pdf";
             filename = "order_history.pdf";
         }
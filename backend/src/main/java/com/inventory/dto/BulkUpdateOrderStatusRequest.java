@@ -0,0 +1,17 @@
+package com.inventory.dto;
+
+import com.inventory.entity.Order;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkUpdateOrderStatusRequest {
+    @NotEmpty(message = "Order IDs are required")
+    private List<Long> orderIds;
+    
+    @NotNull(message = "Status is required")
+    private Order.OrderStatus status;
+}
@@ -15,6 +15,7 @@ public class CartDto {
     private String productName;
     private BigDecimal productPrice;
     private String productImage;
+    private ImageVariantsDto productImageVariants;
     private Integer quantity;
     private BigDecimal subtotal;
 }
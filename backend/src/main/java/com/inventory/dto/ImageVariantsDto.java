@@ -0,0 +1,18 @@
+package com.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * URLs for one product image. Until the variants are generated every field points at the original.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageVariantsDto {
+    private String original;
+    private String thumb;
+    private String card;
+    private String full;
+}
@@ -22,6 +22,7 @@ public class ProductDto {
     private Long categoryId;
     private String categoryName;
     private List<String> imageUrls;
+    private List<ImageVariantsDto> images;
     private Double averageRating;
     private Integer reviewCount;
     private LocalDateTime createdAt;
@@ -4,11 +4,15 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class ProfileResponse {
     private UserDto user;
     private UserSettingsDto settings;
+    // Avatar URL per square size in pixels, smallest first
+    private Map<Integer, String> avatarVariants;
 }
 
@@ -16,6 +16,7 @@ public class WishlistDto {
     private String productName;
     private BigDecimal productPrice;
     private String productImage;
+    private ImageVariantsDto productImageVariants;
     private LocalDateTime addedAt;
 }
 
@@ -0,0 +1,74 @@
+package com.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "email_outbox", indexes = {
+    @Index(columnList = "status, priority, next_attempt_at"),
+    @Index(columnList = "claim_token")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailOutbox {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private String recipient;
+    
+    @Column(nullable = false)
+    private String subject;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String body;
+    
+    // Stored as ordinal so that ORDER BY priority puts HIGH first
+    @Enumerated(EnumType.ORDINAL)
+    @Column(nullable = false)
+    private Priority priority = Priority.NORMAL;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.PENDING;
+    
+    @Column(unique = true)
+    private String dedupeKey;
+    
+    // Body is blanked once the message is sent or dead-lettered
+    @Column(nullable = false)
+    private boolean sensitive;
+    
+    @Column(nullable = false)
+    private Integer attempts = 0;
+    
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+    
+    private String claimToken;
+    
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+    
+    private LocalDateTime sentAt;
+    
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    public enum Priority {
+        HIGH, NORMAL, LOW
+    }
+    
+    public enum Status {
+        PENDING, SENDING, SENT, DEAD
+    }
+}
@@ -11,7 +11,9 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "notifications", indexes = {
     @Index(columnList = "user_id"),
-    @Index(columnList = "is_read")
+    @Index(columnList = "user_id, created_at"),
+    @Index(columnList = "is_read"),
+    @Index(columnList = "is_read, created_at")
 })
 @Data
 @NoArgsConstructor
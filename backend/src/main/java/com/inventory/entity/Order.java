@@ -10,11 +10,16 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Entity
 @Table(name = "orders", indexes = {
-    @Index(columnList = "user_id"),
+    @Index(columnList = "user_id, created_at"),
+    @Index(columnList = "staff_id, status, created_at"),
     @Index(columnList = "status"),
     @Index(columnList = "created_at")
 })
@@ -56,8 +61,24 @@ public class Order {
     @Column(nullable = false)
     private LocalDateTime updatedAt;
     
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
     public enum OrderStatus {
-        PENDING, PROCESSING, SHIPPED, DELIVERED, CANCELLED
+        PENDING, PROCESSING, SHIPPED, DELIVERED, CANCELLED;
+        
+        private static final Map<OrderStatus, Set<OrderStatus>> TRANSITIONS = new EnumMap<>(Map.of(
+                PENDING, EnumSet.of(PROCESSING, CANCELLED),
+                PROCESSING, EnumSet.of(SHIPPED, CANCELLED),
+                SHIPPED, EnumSet.of(DELIVERED),
+                DELIVERED, EnumSet.noneOf(OrderStatus.class),
+                CANCELLED, EnumSet.noneOf(OrderStatus.class)
+        ));
+        
+        public boolean canTransitionTo(OrderStatus next) {
+            return TRANSITIONS.get(this).contains(next);
+        }
     }
 }
 
@@ -29,5 +29,8 @@ public class OtpToken {
     
     @Column(nullable = false)
     private Boolean used = false;
+    
+    @Column(nullable = false)
+    private Integer attempts = 0;
 }
 
@@ -0,0 +1,45 @@
+package com.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+// A notification waiting for the next digest; written in the same transaction as the
+// business change so it commits or rolls back with it
+@Entity
+@Table(name = "pending_notifications")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingNotification {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(nullable = false)
+    private String email;
+    
+    @Column(nullable = false)
+    private Boolean emailEnabled = false;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Notification.NotificationType type;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String message;
+    
+    private String dedupeKey;
+    
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -58,5 +58,10 @@ public class Product {
     @UpdateTimestamp
     @Column(nullable = false)
     private LocalDateTime updatedAt;
+    
+    // Optimistic lock: concurrent stock or catalog edits fail instead of overwriting each other
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
 
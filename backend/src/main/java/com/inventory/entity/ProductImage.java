@@ -6,7 +6,10 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "product_images")
+@Table(name = "product_images", indexes = {
+    @Index(columnList = "variants_version"),
+    @Index(columnList = "content_hash")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -23,7 +26,15 @@ public class ProductImage {
     @Column(nullable = false)
     private String imageUrl;
     
+    // SHA-256 of the stored blob; the rows sharing a hash are its reference count.
+    // Null for images uploaded before content-addressed storage.
+    @Column(length = 64)
+    private String contentHash;
+    
     @Column(nullable = false)
     private Boolean isPrimary = false;
+    
+    // Spec version the thumb/card/full variants were generated with; null until generated
+    private Integer variantsVersion;
 }
 
@@ -0,0 +1,38 @@
+package com.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "storage_deletions", indexes = @Index(columnList = "next_attempt_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageDeletion {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // File or directory relative to the upload root, e.g. products/12 or avatars/3/avatar.png
+    @Column(nullable = false, length = 512)
+    private String path;
+    
+    @Column(nullable = false)
+    private Integer attempts = 0;
+    
+    @Column(length = 1000)
+    private String lastError;
+    
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+    
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+}
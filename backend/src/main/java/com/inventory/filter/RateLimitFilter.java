@@ -0,0 +1,91 @@
+package com.inventory.filter;
+
+import com.inventory.config.RateLimitProperties;
+import com.inventory.service.RateLimitService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Per-IP throttling for /api/auth/** routes. Runs before authentication so a rejected
+ * request costs no hashing, DB or SMTP work. Per-email limits are applied in AuthService,
+ * where the request body has been parsed.
+ *
+ * <p>The client address is the socket address, so behind a reverse proxy either configure
+ * server.forward-headers-strategy or list the proxy in app.rate-limit.trusted-proxies;
+ * otherwise every client shares the proxy's bucket.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    
+    private static final String AUTH_PREFIX = "/api/auth/";
+    
+    private final RateLimitService rateLimitService;
+    private final RateLimitProperties properties;
+    
+    public RateLimitFilter(RateLimitService rateLimitService, RateLimitProperties properties) {
+        this.rateLimitService = rateLimitService;
+        this.properties = properties;
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !request.getRequestURI().startsWith(AUTH_PREFIX);
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        
+        String route = request.getRequestURI().substring(AUTH_PREFIX.length());
+        long waitNanos = rateLimitService.tryAcquire(route, RateLimitService.BY_IP, clientAddress(request));
+        
+        if (waitNanos > 0) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(RateLimitService.toRetryAfterSeconds(waitNanos)));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"status\":429,\"error\":\"Too Many Requests\"," +
+                    "\"message\":\"Too many requests, please try again later\",\"path\":\"" + request.getRequestURI() + "\"}");
+            return;
+        }
+        
+        filterChain.doFilter(request, response);
+    }
+    
+    /**
+     * Walks X-Forwarded-For from the right while the hop is a trusted proxy and returns the
+     * first address that is not, so a client cannot pick its own bucket by prepending entries.
+     */
+    private String clientAddress(HttpServletRequest request) {
+        List<String> trusted = properties.getTrustedProxies();
+        String address = request.getRemoteAddr();
+        if (trusted.isEmpty() || !trusted.contains(address)) {
+            return address;
+        }
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (forwardedFor == null || forwardedFor.isBlank()) {
+            return address;
+        }
+        String[] hops = forwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (hop.isEmpty()) {
+                continue;
+            }
+            address = hop;
+            if (!trusted.contains(hop)) {
+                break;
+            }
+        }
+        return address;
+    }
+}
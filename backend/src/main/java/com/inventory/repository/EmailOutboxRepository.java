@@ -0,0 +1,69 @@
+package com.inventory.repository;
+
+import com.inventory.entity.EmailOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+    List<EmailOutbox> findByClaimToken(String claimToken);
+    long countByStatus(EmailOutbox.Status status);
+    
+    // Inserts only when the dedupe key is absent; returns 0 for a duplicate on any database
+    @Modifying
+    @Transactional
+    @Query("INSERT INTO EmailOutbox (recipient, subject, body, priority, status, dedupeKey, sensitive, " +
+           "attempts, nextAttemptAt, createdAt) " +
+           "SELECT :recipient, :subject, :body, :priority, com.inventory.entity.EmailOutbox$Status.PENDING, " +
+           ":dedupeKey, :sensitive, 0, :now, :now " +
+           "WHERE NOT EXISTS (SELECT 1 FROM EmailOutbox e WHERE e.dedupeKey = :dedupeKey)")
+    int insertIfAbsent(@Param("recipient") String recipient, @Param("subject") String subject,
+                       @Param("body") String body, @Param("priority") EmailOutbox.Priority priority,
+                       @Param("dedupeKey") String dedupeKey, @Param("sensitive") boolean sensitive,
+                       @Param("now") LocalDateTime now);
+    
+    // SENDING rows whose lease has expired (e.g. after a crash) are picked up again
+    @Query("SELECT e.id FROM EmailOutbox e WHERE " +
+           "e.status IN (com.inventory.entity.EmailOutbox$Status.PENDING, com.inventory.entity.EmailOutbox$Status.SENDING) " +
+           "AND e.nextAttemptAt <= :now ORDER BY e.priority, e.id")
+    List<Long> findReadyIds(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutbox e SET e.status = com.inventory.entity.EmailOutbox$Status.SENDING, " +
+           "e.claimToken = :token, e.nextAttemptAt = :leaseUntil " +
+           "WHERE e.id IN :ids AND e.nextAttemptAt <= :now AND " +
+           "e.status IN (com.inventory.entity.EmailOutbox$Status.PENDING, com.inventory.entity.EmailOutbox$Status.SENDING)")
+    int claim(@Param("ids") List<Long> ids, @Param("token") String token,
+              @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutbox e SET e.status = com.inventory.entity.EmailOutbox$Status.SENT, " +
+           "e.sentAt = :sentAt, e.attempts = e.attempts + 1, e.claimToken = NULL, " +
+           "e.body = CASE WHEN e.sensitive = true THEN '' ELSE e.body END WHERE e.id = :id")
+    int markSent(@Param("id") Long id, @Param("sentAt") LocalDateTime sentAt);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.attempts = e.attempts + :attemptDelta, " +
+           "e.lastError = :error, e.nextAttemptAt = :nextAttemptAt, e.claimToken = NULL, " +
+           "e.body = CASE WHEN e.sensitive = true AND :status = com.inventory.entity.EmailOutbox$Status.DEAD " +
+           "THEN '' ELSE e.body END WHERE e.id = :id")
+    int reschedule(@Param("id") Long id, @Param("status") EmailOutbox.Status status,
+                   @Param("attemptDelta") int attemptDelta, @Param("error") String error,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EmailOutbox e WHERE e.status = com.inventory.entity.EmailOutbox$Status.SENT AND e.sentAt < :cutoff")
+    int deleteSentBefore(@Param("cutoff") LocalDateTime cutoff);
+}
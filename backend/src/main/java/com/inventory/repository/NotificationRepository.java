@@ -2,9 +2,15 @@ package com.inventory.repository;
 
 import com.inventory.entity.Notification;
 import com.inventory.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -12,5 +18,39 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     List<Notification> findByUserOrderByCreatedAtDesc(User user);
     long countByUserAndIsReadFalse(User user);
     List<Notification> findByUserAndIsReadFalseOrderByCreatedAtDesc(User user);
+    boolean existsByUserAndTypeAndIsReadFalseAndMessageContaining(User user, Notification.NotificationType type, String text);
+    
+    @Query("SELECT n FROM Notification n WHERE n.user = :user AND " +
+           "(:type IS NULL OR n.type = :type) AND " +
+           "(:isRead IS NULL OR n.isRead = :isRead) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFeedFirstPage(@Param("user") User user,
+                                         @Param("type") Notification.NotificationType type,
+                                         @Param("isRead") Boolean isRead,
+                                         Pageable pageable);
+    
+    @Query("SELECT n FROM Notification n WHERE n.user = :user AND " +
+           "(:type IS NULL OR n.type = :type) AND " +
+           "(:isRead IS NULL OR n.isRead = :isRead) AND " +
+           "(n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFeedAfter(@Param("user") User user,
+                                     @Param("type") Notification.NotificationType type,
+                                     @Param("isRead") Boolean isRead,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id,
+                                     Pageable pageable);
+    
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.user = :user AND n.isRead = false")
+    int markAllAsReadByUser(@Param("user") User user);
+    
+    @Query("SELECT n.id FROM Notification n WHERE n.isRead = true AND n.createdAt < :cutoff ORDER BY n.id")
+    List<Long> findReadIdsCreatedBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+    
+    // Each call runs in its own short transaction so a purge never holds locks across batches
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Notification n WHERE n.id IN :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
 }
-
@@ -6,6 +6,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,5 +16,19 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     
     @Query("SELECT oi.product.id FROM OrderItem oi WHERE oi.order.user.id = :userId")
     List<Long> findPurchasedProductIdsByUserId(@Param("userId") Long userId);
+    
+    @Query("SELECT oi.order.id AS orderId, oi.id AS id, p.id AS productId, p.name AS productName, " +
+           "oi.quantity AS quantity, oi.price AS price " +
+           "FROM OrderItem oi JOIN oi.product p WHERE oi.order.id IN :orderIds ORDER BY oi.id")
+    List<OrderItemRow> findRowsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+    
+    interface OrderItemRow {
+        Long getOrderId();
+        Long getId();
+        Long getProductId();
+        String getProductName();
+        Integer getQuantity();
+        BigDecimal getPrice();
+    }
 }
 
@@ -10,29 +10,96 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUser(User user);
     List<Order> findByStaff(User staff);
+    long countByUser(User user);
     
-    @Query("SELECT o FROM Order o WHERE " +
+    // Listings select ids first and build DTOs with OrderQueryService, so one page costs a fixed
+    // number of statements instead of one per lazy association
+    @Query("SELECT o FROM Order o JOIN FETCH o.user LEFT JOIN FETCH o.staff WHERE o.id IN :ids")
+    List<Order> findWithUserAndStaffByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Keyset history, newest first, served by the (user_id, created_at) index
+    @Query("SELECT o.id FROM Order o WHERE o.user = :user AND " +
+           "(:status IS NULL OR o.status = :status) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findCustomerHistoryFirstPage(@Param("user") User user,
+                                            @Param("status") Order.OrderStatus status,
+                                            Pageable pageable);
+    
+    @Query("SELECT o.id FROM Order o WHERE o.user = :user AND " +
+           "(:status IS NULL OR o.status = :status) AND " +
+           "(o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findCustomerHistoryAfter(@Param("user") User user,
+                                        @Param("status") Order.OrderStatus status,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") Long id,
+                                        Pageable pageable);
+    
+    // Staff history has separate status queries so the (staff_id, status, created_at) index
+    // can serve the filter and the ordering together
+    @Query("SELECT o.id FROM Order o WHERE o.staff = :staff ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findStaffHistoryFirstPage(@Param("staff") User staff, Pageable pageable);
+    
+    @Query("SELECT o.id FROM Order o WHERE o.staff = :staff AND " +
+           "(o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findStaffHistoryAfter(@Param("staff") User staff,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id,
+                                     Pageable pageable);
+    
+    @Query("SELECT o.id FROM Order o WHERE o.staff = :staff AND o.status = :status " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findStaffHistoryByStatusFirstPage(@Param("staff") User staff,
+                                                 @Param("status") Order.OrderStatus status,
+                                                 Pageable pageable);
+    
+    @Query("SELECT o.id FROM Order o WHERE o.staff = :staff AND o.status = :status AND " +
+           "(o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findStaffHistoryByStatusAfter(@Param("staff") User staff,
+                                             @Param("status") Order.OrderStatus status,
+                                             @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("id") Long id,
+                                             Pageable pageable);
+    
+    @Query(value = "SELECT o.id FROM Order o WHERE " +
+           "(:userId IS NULL OR o.user.id = :userId) AND " +
+           "(:status IS NULL OR o.status = :status) AND " +
+           "(:startDate IS NULL OR o.createdAt >= :startDate) AND " +
+           "(:endDate IS NULL OR o.createdAt <= :endDate)",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE " +
            "(:userId IS NULL OR o.user.id = :userId) AND " +
            "(:status IS NULL OR o.status = :status) AND " +
            "(:startDate IS NULL OR o.createdAt >= :startDate) AND " +
            "(:endDate IS NULL OR o.createdAt <= :endDate)")
-    Page<Order> findOrdersWithFilters(@Param("userId") Long userId,
+    Page<Long> findOrderIdsWithFilters(@Param("userId") Long userId,
                                        @Param("status") Order.OrderStatus status,
                                        @Param("startDate") LocalDateTime startDate,
                                        @Param("endDate") LocalDateTime endDate,
                                        Pageable pageable);
     
+    @Query("SELECT o.staff.id AS staffId, COUNT(o) AS openOrders FROM Order o " +
+           "WHERE o.staff IS NOT NULL AND o.status IN :statuses GROUP BY o.staff.id")
+    List<StaffWorkload> countByStaffAndStatusIn(@Param("statuses") Collection<Order.OrderStatus> statuses);
+    
+    interface StaffWorkload {
+        Long getStaffId();
+        Long getOpenOrders();
+    }
+    
     @Query("SELECT COUNT(o) FROM Order o WHERE o.staff = :staff AND o.status = :status")
     long countByStaffAndStatus(User staff, Order.OrderStatus status);
     
-    @Query("SELECT o FROM Order o WHERE o.staff = :staff AND DATE(o.createdAt) = CURRENT_DATE")
-    List<Order> findTodayOrdersByStaff(User staff);
+    @Query("SELECT o.id FROM Order o WHERE o.staff = :staff AND DATE(o.createdAt) = CURRENT_DATE")
+    List<Long> findTodayOrderIdsByStaff(User staff);
     
     @Query("SELECT SUM(o.totalAmount) FROM Order o WHERE " +
            "MONTH(o.createdAt) = :month AND YEAR(o.createdAt) = :year")
@@ -1,7 +1,11 @@
 package com.inventory.repository;
 
 import com.inventory.entity.OtpToken;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -9,8 +13,10 @@ import java.util.Optional;
 
 @Repository
 public interface OtpTokenRepository extends JpaRepository<OtpToken, Long> {
-    Optional<OtpToken> findByEmailAndOtpAndUsedFalse(String email, String otp);
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM OtpToken o WHERE o.email = :email AND o.used = false AND o.expiresAt > :now")
+    Optional<OtpToken> findActiveByEmailForUpdate(@Param("email") String email, @Param("now") LocalDateTime now);
+    
     void deleteByExpiresAtBefore(LocalDateTime now);
     void deleteByEmail(String email);
 }
-
@@ -0,0 +1,20 @@
+package com.inventory.repository;
+
+import com.inventory.entity.PendingNotification;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PendingNotificationRepository extends JpaRepository<PendingNotification, Long> {
+    
+    // Locked so two nodes flushing at once never digest the same rows twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM PendingNotification p ORDER BY p.id")
+    List<PendingNotification> findBatchForUpdate(Pageable pageable);
+}
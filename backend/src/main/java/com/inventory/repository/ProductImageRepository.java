@@ -1,14 +1,31 @@
 package com.inventory.repository;
 
 import com.inventory.entity.ProductImage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 @Repository
-public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
+public interface ProductImageRepository extends JpaRepository<ProductImage, Long>, ProductImageRepositoryCustom {
     List<ProductImage> findByProductId(Long productId);
     void deleteByProductId(Long productId);
+    
+    boolean existsByContentHash(String contentHash);
+    
+    boolean existsByImageUrlAndVariantsVersion(String imageUrl, Integer variantsVersion);
+    
+    @Query("SELECT i.id FROM ProductImage i WHERE (i.variantsVersion IS NULL OR i.variantsVersion <> :version) " +
+           "AND i.id > :afterId ORDER BY i.id")
+    List<Long> findIdsWithStaleVariants(@Param("version") int version, @Param("afterId") long afterId, Pageable pageable);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProductImage i SET i.variantsVersion = :version WHERE i.id = :id")
+    int markVariantsGenerated(@Param("id") Long id, @Param("version") int version);
 }
-
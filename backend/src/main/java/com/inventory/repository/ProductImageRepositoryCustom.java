@@ -0,0 +1,14 @@
+package com.inventory.repository;
+
+import com.inventory.entity.ProductImage;
+
+import java.util.List;
+
+public interface ProductImageRepositoryCustom {
+    
+    /**
+     * Inserts all images for a product in one JDBC batch and returns their generated ids in
+     * order. IDENTITY ids stop Hibernate from batching saveAll, hence plain JDBC.
+     */
+    List<Long> batchInsert(Long productId, List<ProductImage> images);
+}
@@ -0,0 +1,63 @@
+package com.inventory.repository;
+
+import com.inventory.entity.ProductImage;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+public class ProductImageRepositoryImpl implements ProductImageRepositoryCustom {
+    
+    private static final String INSERT_SQL =
+            "INSERT INTO product_images (product_id, image_url, content_hash, is_primary) VALUES (?, ?, ?, ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public ProductImageRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    @Override
+    @Transactional
+    public List<Long> batchInsert(Long productId, List<ProductImage> images) {
+        if (images.isEmpty()) {
+            return List.of();
+        }
+        
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ProductImage image = images.get(i);
+                        ps.setLong(1, productId);
+                        ps.setString(2, image.getImageUrl());
+                        ps.setString(3, image.getContentHash());
+                        ps.setBoolean(4, Boolean.TRUE.equals(image.getIsPrimary()));
+                    }
+                    
+                    @Override
+                    public int getBatchSize() {
+                        return images.size();
+                    }
+                },
+                keyHolder);
+        
+        return keyHolder.getKeyList().stream()
+                .map(Map::values)
+                .map(values -> values.iterator().next())
+                .filter(Objects::nonNull)
+                .map(key -> ((Number) key).longValue())
+                .collect(Collectors.toList());
+    }
+}
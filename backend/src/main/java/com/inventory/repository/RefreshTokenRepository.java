@@ -0,0 +1,37 @@
+package com.inventory.repository;
+
+import com.inventory.entity.RefreshToken;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM RefreshToken r JOIN FETCH r.user WHERE r.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHashForUpdate(@Param("tokenHash") String tokenHash);
+    
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+    
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revoked = true, r.rotatedAt = NULL " +
+           "WHERE r.familyId = :familyId AND (r.revoked = false OR r.rotatedAt IS NOT NULL)")
+    int revokeFamily(@Param("familyId") String familyId);
+    
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revoked = true, r.rotatedAt = NULL " +
+           "WHERE r.user.id = :userId AND (r.revoked = false OR r.rotatedAt IS NOT NULL)")
+    int revokeAllByUserId(@Param("userId") Long userId);
+    
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.expiresAt < :cutoff")
+    int deleteExpiredBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,21 @@
+package com.inventory.repository;
+
+import com.inventory.entity.StorageDeletion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StorageDeletionRepository extends JpaRepository<StorageDeletion, Long> {
+    List<StorageDeletion> findByNextAttemptAtBeforeOrderByIdAsc(LocalDateTime now, Pageable pageable);
+    
+    @Modifying
+    @Query("DELETE FROM StorageDeletion d WHERE d.path IN :paths")
+    int deleteByPathIn(@Param("paths") List<String> paths);
+}
@@ -17,6 +17,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
     long countByRole(User.Role role);
     List<User> findByRole(User.Role role);
+    List<User> findByRoleIn(List<User.Role> roles);
+    
+    @Query("SELECT u.id FROM User u WHERE u.enabled = false")
+    List<Long> findIdsByEnabledFalse();
     
     @Query("SELECT u FROM User u WHERE (:role IS NULL OR u.role = :role) " +
             "AND (:keyword IS NULL OR LOWER(u.name) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
@@ -19,20 +19,31 @@ public class AuthService {
     private final JwtUtil jwtUtil;
     private final OtpService otpService;
     private final AuthenticationManager authenticationManager;
+    private final TokenService tokenService;
+    private final RateLimitService rateLimitService;
+    private final RefreshTokenService refreshTokenService;
     
     public AuthService(UserRepository userRepository,
                       PasswordEncoder passwordEncoder,
                       JwtUtil jwtUtil,
                       OtpService otpService,
-                      AuthenticationManager authenticationManager) {
+                      AuthenticationManager authenticationManager,
+                      TokenService tokenService,
+                      RateLimitService rateLimitService,
+                      RefreshTokenService refreshTokenService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
         this.otpService = otpService;
         this.authenticationManager = authenticationManager;
+        this.tokenService = tokenService;
+        this.rateLimitService = rateLimitService;
+        this.refreshTokenService = refreshTokenService;
     }
     
     public AuthResponse login(LoginRequest request) {
+        rateLimitService.acquireOrThrow("login", RateLimitService.BY_EMAIL, request.getEmail());
+        
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
         );
@@ -40,9 +51,7 @@ public class AuthService {
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        String token = jwtUtil.generateToken(user.getEmail(), user.getRole().name(), user.getId());
-        
-        return new AuthResponse(token, user.getEmail(), user.getName(), user.getRole(), user.getId());
+        return buildAuthResponse(user, refreshTokenService.issue(user));
     }
     
     @Transactional
@@ -68,12 +77,26 @@ public class AuthService {
         
         user = userRepository.save(user);
         
-        String token = jwtUtil.generateToken(user.getEmail(), user.getRole().name(), user.getId());
-        
-        return new AuthResponse(token, user.getEmail(), user.getName(), user.getRole(), user.getId());
+        return buildAuthResponse(user, refreshTokenService.issue(user));
+    }
+    
+    public AuthResponse refresh(RefreshTokenRequest request) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+        return buildAuthResponse(rotation.user(), rotation.refreshToken());
+    }
+    
+    public void logout(String token, String refreshToken) {
+        if (token != null) {
+            tokenService.revokeToken(token);
+        }
+        if (refreshToken != null) {
+            refreshTokenService.revoke(refreshToken);
+        }
     }
     
     public void forgotPassword(ForgotPasswordRequest request) {
+        rateLimitService.acquireOrThrow("forgot-password", RateLimitService.BY_EMAIL, request.getEmail());
+        
         if (!userRepository.existsByEmail(request.getEmail())) {
             throw new RuntimeException("Email not found");
         }
@@ -82,22 +105,32 @@ public class AuthService {
     }
     
     public boolean validateOtp(ValidateOtpRequest request) {
+        rateLimitService.acquireOrThrow("validate-otp", RateLimitService.BY_EMAIL, request.getEmail());
         return otpService.validateOtp(request.getEmail(), request.getOtp());
     }
     
     @Transactional
     public void resetPassword(ResetPasswordRequest request) {
-        if (!otpService.validateOtp(request.getEmail(), request.getOtp())) {
-            throw new RuntimeException("Invalid or expired OTP");
-        }
+        rateLimitService.acquireOrThrow("reset-password", RateLimitService.BY_EMAIL, request.getEmail());
         
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
+        if (!otpService.consumeOtp(request.getEmail(), request.getOtp())) {
+            throw new RuntimeException("Invalid or expired OTP");
+        }
+        
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
         
-        otpService.markOtpAsUsed(request.getEmail(), request.getOtp());
+        // Sign out every session that was started with the old password
+        refreshTokenService.revokeAllForUser(user.getId());
+    }
+    
+    private AuthResponse buildAuthResponse(User user, String refreshToken) {
+        String token = jwtUtil.generateToken(user.getEmail(), user.getRole().name(), user.getId());
+        return new AuthResponse(token, refreshToken, jwtUtil.getAccessExpirationSeconds(),
+                user.getEmail(), user.getName(), user.getRole(), user.getId());
     }
 }
 
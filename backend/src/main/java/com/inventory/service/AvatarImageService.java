@@ -0,0 +1,165 @@
+package com.inventory.service;
+
+import com.inventory.config.ImageProperties;
+import com.inventory.exception.ServiceBusyException;
+import com.inventory.util.ImageResizer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Normalizes uploaded avatars: the image is center-cropped to a square, scaled to each
+ * configured size and re-encoded as JPEG, which drops EXIF and other metadata. Decoding runs
+ * on a small bounded pool so a burst of large uploads cannot take every request thread.
+ * Each upload goes to avatars/{userId}/{version}/, where the version is derived from the
+ * upload's SHA-256, so its URLs never change content and can be cached as immutable.
+ */
+@Service
+public class AvatarImageService {
+
+    private static final String AVATAR_URL_PREFIX = "/api/images/avatars/";
+
+    private final FileStorageService fileStorageService;
+    private final ImageProperties properties;
+    private final List<Integer> sizes;
+    private final ThreadPoolExecutor executor;
+
+    public AvatarImageService(FileStorageService fileStorageService, ImageProperties properties) {
+        this.fileStorageService = fileStorageService;
+        this.properties = properties;
+        this.sizes = properties.getAvatarSizes().stream().distinct().sorted(Comparator.reverseOrder()).toList();
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(properties.getAvatarWorkers(), properties.getAvatarWorkers(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getAvatarQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "avatar-processor-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Writes {version}/avatar-{size}.jpg for every configured size and returns the URL of the largest.
+     */
+    public String saveAvatar(Long userId, MultipartFile file) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("Avatar file is required");
+        }
+        fileStorageService.validateImages(new MultipartFile[]{file});
+
+        Future<String> future;
+        try {
+            future = executor.submit(() -> process(userId, file));
+        } catch (RejectedExecutionException e) {
+            throw new ServiceBusyException("Avatar processing is busy, please retry");
+        }
+
+        try {
+            return future.get(properties.getAvatarTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while processing avatar");
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new IOException("Timed out processing avatar");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Size -> URL for an avatar URL produced by {@link #saveAvatar}. Any other URL (a legacy
+     * upload or an external link set by an admin) is returned for every size.
+     */
+    public Map<Integer, String> variantUrls(String avatarUrl) {
+        if (avatarUrl == null || avatarUrl.isBlank()) {
+            return Map.of();
+        }
+        String url = avatarUrl.split("\\?")[0];
+        String largest = "avatar-" + sizes.get(0) + ".jpg";
+        boolean normalized = url.startsWith(AVATAR_URL_PREFIX) && url.endsWith("/" + largest);
+
+        Map<Integer, String> variants = new LinkedHashMap<>();
+        for (int i = sizes.size() - 1; i >= 0; i--) {
+            int size = sizes.get(i);
+            variants.put(size, normalized
+                    ? url.substring(0, url.length() - largest.length()) + "avatar-" + size + ".jpg"
+                    : avatarUrl);
+        }
+        return variants;
+    }
+
+    /**
+     * Files to delete once {@code avatarUrl} is replaced: the whole version directory for a
+     * versioned avatar, otherwise the file behind each size.
+     */
+    public List<Path> storedPaths(String avatarUrl) {
+        String url = avatarUrl.split("\\?")[0];
+        if (fileStorageService.isImmutableUrl(url)) {
+            return List.of(fileStorageService.resolveImagePath(url).getParent());
+        }
+        return variantUrls(url).values().stream()
+                .distinct()
+                .map(fileStorageService::resolveImagePath)
+                .toList();
+    }
+
+    private String process(Long userId, MultipartFile file) throws IOException {
+        byte[] bytes = file.getBytes();
+        String version = version(bytes);
+        BufferedImage image = ImageResizer.cropToSquare(ImageResizer.read(new ByteArrayInputStream(bytes), properties.getMaxPixels()));
+
+        // Largest first, each size scaled from the previous one; re-uploading the same image
+        // rewrites the same directory
+        Path directory = fileStorageService.getAvatarDirectory(userId).resolve(version);
+        for (int size : sizes) {
+            image = ImageResizer.scaleToWidth(image, size);
+            ImageResizer.writeJpeg(image, properties.getAvatarQuality(), directory.resolve("avatar-" + size + ".jpg"));
+        }
+        return AVATAR_URL_PREFIX + userId + "/" + version + "/avatar-" + sizes.get(0) + ".jpg";
+    }
+
+    /**
+     * First 16 hex chars of SHA-256 over the upload and the output settings, so changing the
+     * sizes or quality also yields new URLs.
+     */
+    private String version(byte[] bytes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(bytes);
+            digest.update((sizes + "|" + properties.getAvatarQuality()).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -2,15 +2,13 @@ package com.inventory.service;
 
 import com.inventory.dto.AddToCartRequest;
 import com.inventory.dto.CartDto;
+import com.inventory.dto.ImageVariantsDto;
 import com.inventory.dto.UpdateCartRequest;
 import com.inventory.entity.Cart;
 import com.inventory.entity.Product;
 import com.inventory.entity.User;
 import com.inventory.repository.CartRepository;
 import com.inventory.repository.ProductRepository;
-import com.inventory.repository.UserRepository;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,30 +21,26 @@ public class CartService {
     
     private final CartRepository cartRepository;
     private final ProductRepository productRepository;
-    private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
+    private final ImageVariantService imageVariantService;
     
-    public CartService(CartRepository cartRepository, ProductRepository productRepository, UserRepository userRepository) {
+    public CartService(CartRepository cartRepository, ProductRepository productRepository, CurrentUserService currentUserService,
+                       ImageVariantService imageVariantService) {
         this.cartRepository = cartRepository;
         this.productRepository = productRepository;
-        this.userRepository = userRepository;
-    }
-    
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        this.currentUserService = currentUserService;
+        this.imageVariantService = imageVariantService;
     }
     
     public List<CartDto> getCart() {
-        User user = getCurrentUser();
+        User user = currentUserService.getCurrentUserReference();
         List<Cart> cartItems = cartRepository.findByUser(user);
         return cartItems.stream().map(this::toDto).collect(Collectors.toList());
     }
     
     @Transactional
     public CartDto addToCart(AddToCartRequest request) {
-        User user = getCurrentUser();
+        User user = currentUserService.getCurrentUserReference();
         Product product = productRepository.findById(request.getProductId())
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         
@@ -72,11 +66,11 @@ public class CartService {
     
     @Transactional
     public CartDto updateCart(Long cartId, UpdateCartRequest request) {
-        User user = getCurrentUser();
+        Long userId = currentUserService.getCurrentUserId();
         Cart cart = cartRepository.findById(cartId)
                 .orElseThrow(() -> new RuntimeException("Cart item not found"));
         
-        if (!cart.getUser().getId().equals(user.getId())) {
+        if (!cart.getUser().getId().equals(userId)) {
             throw new RuntimeException("Unauthorized");
         }
         
@@ -91,11 +85,11 @@ public class CartService {
     
     @Transactional
     public void removeFromCart(Long cartId) {
-        User user = getCurrentUser();
+        Long userId = currentUserService.getCurrentUserId();
         Cart cart = cartRepository.findById(cartId)
                 .orElseThrow(() -> new RuntimeException("Cart item not found"));
         
-        if (!cart.getUser().getId().equals(user.getId())) {
+        if (!cart.getUser().getId().equals(userId)) {
             throw new RuntimeException("Unauthorized");
         }
         
@@ -104,13 +98,15 @@ public class CartService {
     
     @Transactional
     public void clearCart() {
-        User user = getCurrentUser();
+        User user = currentUserService.getCurrentUserReference();
         cartRepository.deleteByUser(user);
     }
     
     private CartDto toDto(Cart cart) {
         Product product = cart.getProduct();
         String productImage = product.getImages().isEmpty() ? null : product.getImages().get(0).getImageUrl();
+        ImageVariantsDto productImageVariants = product.getImages().isEmpty()
+                ? null : imageVariantService.toVariants(product.getImages().get(0));
         BigDecimal subtotal = product.getPrice().multiply(BigDecimal.valueOf(cart.getQuantity()));
         
         return new CartDto(
@@ -119,6 +115,7 @@ public class CartService {
                 product.getName(),
                 product.getPrice(),
                 productImage,
+                productImageVariants,
                 cart.getQuantity(),
                 subtotal
         );
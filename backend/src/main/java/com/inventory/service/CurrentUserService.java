@@ -0,0 +1,55 @@
+package com.inventory.service;
+
+import com.inventory.entity.User;
+import com.inventory.repository.UserRepository;
+import com.inventory.util.JwtPrincipal;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Resolves the authenticated user from the {@link JwtPrincipal} placed in the security
+ * context by the JWT filter, so callers that only need the id or role pay no query.
+ */
+@Service
+public class CurrentUserService {
+    
+    private final UserRepository userRepository;
+    
+    public CurrentUserService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+    
+    public JwtPrincipal getPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal;
+        }
+        throw new RuntimeException("User not found");
+    }
+    
+    public Long getCurrentUserId() {
+        return getPrincipal().getUserId();
+    }
+    
+    public User.Role getCurrentRole() {
+        return User.Role.valueOf(getPrincipal().getRole());
+    }
+    
+    /**
+     * Returns a lazy reference to the current user. No SELECT is issued unless a field
+     * other than the id is read, which makes it suitable for query parameters and FKs.
+     */
+    public User getCurrentUserReference() {
+        return userRepository.getReferenceById(getCurrentUserId());
+    }
+    
+    /**
+     * Loads the full user entity. Lookups by primary key are served from the request's
+     * persistence context after the first load, so repeated calls cost one query at most.
+     */
+    public User getCurrentUser() {
+        return userRepository.findById(getCurrentUserId())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+}
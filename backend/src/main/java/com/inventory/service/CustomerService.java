@@ -3,55 +3,42 @@ package com.inventory.service;
 import com.inventory.dto.CustomerDashboardDto;
 import com.inventory.dto.OrderDto;
 import com.inventory.dto.ProfileDto;
-import com.inventory.entity.Order;
 import com.inventory.entity.User;
 import com.inventory.repository.OrderRepository;
-import com.inventory.repository.UserRepository;
 import com.inventory.repository.WishlistRepository;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class CustomerService {
     
-    private final UserRepository userRepository;
     private final OrderRepository orderRepository;
     private final WishlistRepository wishlistRepository;
+    private final CurrentUserService currentUserService;
+    private final OrderQueryService orderQueryService;
     
-    public CustomerService(UserRepository userRepository, OrderRepository orderRepository,
-                          WishlistRepository wishlistRepository) {
-        this.userRepository = userRepository;
+    public CustomerService(OrderRepository orderRepository,
+                          WishlistRepository wishlistRepository, CurrentUserService currentUserService,
+                          OrderQueryService orderQueryService) {
         this.orderRepository = orderRepository;
         this.wishlistRepository = wishlistRepository;
-    }
-    
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        this.currentUserService = currentUserService;
+        this.orderQueryService = orderQueryService;
     }
     
     public CustomerDashboardDto getDashboard() {
-        User user = getCurrentUser();
+        User user = currentUserService.getCurrentUser();
         
-        long totalOrders = orderRepository.findByUser(user).size();
-        List<Order> recentOrders = orderRepository.findByUser(user).stream()
-                .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
-                .limit(5)
-                .collect(Collectors.toList());
+        long totalOrders = orderRepository.countByUser(user);
         
         long wishlistCount = wishlistRepository.countByUser(user);
         
         ProfileDto profile = toProfileDto(user);
         
-        List<OrderDto> recentOrderDtos = recentOrders.stream()
-                .map(this::toOrderDto)
-                .collect(Collectors.toList());
+        List<OrderDto> recentOrderDtos = orderQueryService.getOrderDtos(
+                orderRepository.findCustomerHistoryFirstPage(user, null, PageRequest.of(0, 5)));
         
         return new CustomerDashboardDto(totalOrders, recentOrderDtos, wishlistCount, profile);
     }
@@ -65,29 +52,4 @@ public class CustomerService {
                 user.getAddress()
         );
     }
-    
-    private OrderDto toOrderDto(Order order) {
-        return new OrderDto(
-                order.getId(),
-                order.getUser().getId(),
-                order.getUser().getName(),
-                order.getStaff() != null ? order.getStaff().getId() : null,
-                order.getStaff() != null ? order.getStaff().getName() : null,
-                order.getStatus(),
-                order.getTotalAmount(),
-                order.getShippingAddress(),
-                order.getOrderItems().stream()
-                        .map(item -> new com.inventory.dto.OrderItemDto(
-                                item.getId(),
-                                item.getProduct().getId(),
-                                item.getProduct().getName(),
-                                item.getQuantity(),
-                                item.getPrice()
-                        ))
-                        .collect(Collectors.toList()),
-                order.getCreatedAt(),
-                order.getUpdatedAt()
-        );
-    }
 }
-
@@ -1,6 +1,7 @@
 package com.inventory.service;
 
 import com.inventory.dto.AdminDashboardDto;
+import com.inventory.dto.ImageVariantsDto;
 import com.inventory.dto.OrderDto;
 import com.inventory.dto.ProductDto;
 import com.inventory.dto.StaffDashboardDto;
@@ -9,8 +10,6 @@ import com.inventory.entity.Product;
 import com.inventory.entity.User;
 import com.inventory.repository.*;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -25,32 +24,30 @@ public class DashboardService {
     private final ProductRepository productRepository;
     private final OrderRepository orderRepository;
     private final CategoryRepository categoryRepository;
+    private final CurrentUserService currentUserService;
+    private final ImageVariantService imageVariantService;
+    private final OrderQueryService orderQueryService;
     
     public DashboardService(UserRepository userRepository, ProductRepository productRepository,
-                           OrderRepository orderRepository, CategoryRepository categoryRepository) {
+                           OrderRepository orderRepository, CategoryRepository categoryRepository,
+                           CurrentUserService currentUserService, ImageVariantService imageVariantService,
+                           OrderQueryService orderQueryService) {
         this.userRepository = userRepository;
         this.productRepository = productRepository;
         this.orderRepository = orderRepository;
         this.categoryRepository = categoryRepository;
-    }
-    
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        this.currentUserService = currentUserService;
+        this.imageVariantService = imageVariantService;
+        this.orderQueryService = orderQueryService;
     }
     
     public StaffDashboardDto getStaffDashboard() {
-        User staff = getCurrentUser();
+        User staff = currentUserService.getCurrentUserReference();
         
         long pendingOrdersCount = orderRepository.countByStaffAndStatus(staff, Order.OrderStatus.PENDING);
         long completedOrdersCount = orderRepository.countByStaffAndStatus(staff, Order.OrderStatus.DELIVERED);
         
-        List<Order> todayOrders = orderRepository.findTodayOrdersByStaff(staff);
-        List<OrderDto> todayOrderDtos = todayOrders.stream()
-                .map(this::toOrderDto)
-                .collect(Collectors.toList());
+        List<OrderDto> todayOrderDtos = orderQueryService.getOrderDtos(orderRepository.findTodayOrderIdsByStaff(staff));
         
         return new StaffDashboardDto(pendingOrdersCount, completedOrdersCount, todayOrderDtos);
     }
@@ -110,34 +107,13 @@ public class DashboardService {
         );
     }
     
-    private OrderDto toOrderDto(Order order) {
-        return new OrderDto(
-                order.getId(),
-                order.getUser().getId(),
-                order.getUser().getName(),
-                order.getStaff() != null ? order.getStaff().getId() : null,
-                order.getStaff() != null ? order.getStaff().getName() : null,
-                order.getStatus(),
-                order.getTotalAmount(),
-                order.getShippingAddress(),
-                order.getOrderItems().stream()
-                        .map(item -> new com.inventory.dto.OrderItemDto(
-                                item.getId(),
-                                item.getProduct().getId(),
-                                item.getProduct().getName(),
-                                item.getQuantity(),
-                                item.getPrice()
-                        ))
-                        .collect(Collectors.toList()),
-                order.getCreatedAt(),
-                order.getUpdatedAt()
-        );
-    }
-    
     private ProductDto toProductDto(Product product) {
         List<String> imageUrls = product.getImages().stream()
                 .map(img -> img.getImageUrl())
                 .collect(Collectors.toList());
+        List<ImageVariantsDto> imageVariants = product.getImages().stream()
+                .map(imageVariantService::toVariants)
+                .collect(Collectors.toList());
         
         return new ProductDto(
                 product.getId(),
@@ -148,6 +124,7 @@ public class DashboardService {
                 null, null, product.getCategory().getId(),
                 product.getCategory().getName(),
                 imageUrls,
+                imageVariants,
                 null, // averageRating
                 product.getReviews().size(),
                 product.getCreatedAt(),
@@ -0,0 +1,80 @@
+package com.inventory.service;
+
+import com.inventory.entity.OtpToken;
+import com.inventory.repository.OtpTokenRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Stores OTPs in the otp_tokens table so any node can verify them.
+ */
+@Service
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "database")
+public class DatabaseOtpStore implements OtpStore {
+    
+    private final OtpTokenRepository otpTokenRepository;
+    
+    @Value("${app.otp.max-attempts:5}")
+    private int maxAttempts;
+    
+    public DatabaseOtpStore(OtpTokenRepository otpTokenRepository) {
+        this.otpTokenRepository = otpTokenRepository;
+    }
+    
+    @Override
+    @Transactional
+    public void put(String email, String otp, Duration ttl) {
+        otpTokenRepository.deleteByEmail(email);
+        
+        OtpToken otpToken = new OtpToken();
+        otpToken.setEmail(email);
+        otpToken.setOtp(otp);
+        otpToken.setExpiresAt(LocalDateTime.now().plus(ttl));
+        otpToken.setUsed(false);
+        otpToken.setAttempts(0);
+        otpTokenRepository.save(otpToken);
+    }
+    
+    // Own transaction so failed attempts stick even when the caller rolls back
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean verify(String email, String otp, boolean consume) {
+        Optional<OtpToken> otpTokenOpt = otpTokenRepository.findActiveByEmailForUpdate(email, LocalDateTime.now());
+        if (otpTokenOpt.isEmpty()) {
+            return false;
+        }
+        
+        OtpToken otpToken = otpTokenOpt.get();
+        if (otp == null || !MessageDigest.isEqual(otpToken.getOtp().getBytes(StandardCharsets.UTF_8),
+                otp.getBytes(StandardCharsets.UTF_8))) {
+            otpToken.setAttempts(otpToken.getAttempts() + 1);
+            if (otpToken.getAttempts() >= maxAttempts) {
+                otpToken.setUsed(true);
+            }
+            otpTokenRepository.save(otpToken);
+            return false;
+        }
+        
+        if (consume) {
+            otpToken.setUsed(true);
+            otpTokenRepository.save(otpToken);
+        }
+        return true;
+    }
+    
+    @Scheduled(fixedRate = 3600000) // Run every hour
+    @Transactional
+    public void cleanupExpiredOtps() {
+        otpTokenRepository.deleteByExpiresAtBefore(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,156 @@
+package com.inventory.service;
+
+import com.inventory.entity.EmailOutbox;
+import com.inventory.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Durable outbox for outgoing email. Messages are persisted first (inside the caller's
+ * transaction when there is one) and relayed to {@link MailDispatchService} under a
+ * per-second rate limit, highest priority first. The outbox alone owns retries: each relay
+ * is a single dispatcher attempt, and messages that keep failing are dead-lettered instead
+ * of retried forever.
+ */
+@Service
+public class EmailOutboxService {
+    
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxService.class);
+    
+    private final EmailOutboxRepository outboxRepository;
+    private final MailDispatchService mailDispatchService;
+    
+    @Value("${app.email.sender.address}")
+    private String senderAddress;
+    
+    @Value("${app.mail.outbox.rate-per-second:10}")
+    private int ratePerSecond;
+    
+    @Value("${app.mail.outbox.max-attempts:5}")
+    private int maxAttempts;
+    
+    @Value("${app.mail.outbox.retry-delay-seconds:60}")
+    private long retryDelaySeconds;
+    
+    @Value("${app.mail.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+    
+    @Value("${app.mail.outbox.sent-retention-days:7}")
+    private int sentRetentionDays;
+    
+    public EmailOutboxService(EmailOutboxRepository outboxRepository, MailDispatchService mailDispatchService,
+                              MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.mailDispatchService = mailDispatchService;
+        meterRegistry.gauge("mail.outbox.dead", outboxRepository,
+                repository -> repository.countByStatus(EmailOutbox.Status.DEAD));
+    }
+    
+    /**
+     * Persists an email for delivery. A message whose dedupe key is already in the outbox
+     * is silently dropped, so retried business operations never email twice.
+     */
+    public void enqueue(String to, String subject, String body, EmailOutbox.Priority priority, String dedupeKey) {
+        enqueue(to, subject, body, priority, dedupeKey, false);
+    }
+    
+    /**
+     * As above; a sensitive message (e.g. one carrying an OTP) has its body blanked as soon
+     * as it is sent or dead-lettered, so the secret is not retained in the outbox.
+     */
+    public void enqueue(String to, String subject, String body, EmailOutbox.Priority priority, String dedupeKey,
+                        boolean sensitive) {
+        if (dedupeKey != null) {
+            // Checked and inserted in one statement; only two enqueues racing on the same key
+            // can still hit the unique index, failing the later caller's transaction
+            if (outboxRepository.insertIfAbsent(to, subject, body, priority, dedupeKey, sensitive,
+                    LocalDateTime.now()) == 0) {
+                log.debug("Duplicate outbox email {} ignored", dedupeKey);
+            }
+            return;
+        }
+        
+        EmailOutbox email = new EmailOutbox();
+        email.setRecipient(to);
+        email.setSubject(subject);
+        email.setBody(body);
+        email.setPriority(priority);
+        email.setStatus(EmailOutbox.Status.PENDING);
+        email.setSensitive(sensitive);
+        email.setNextAttemptAt(LocalDateTime.now());
+        outboxRepository.save(email);
+    }
+    
+    /**
+     * Claims up to rate-per-second ready messages each second and hands them to the
+     * dispatch workers. Claims carry a lease, so rows held by a crashed node are retried.
+     */
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-ms:1000}")
+    public void relay() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = outboxRepository.findReadyIds(now, PageRequest.of(0, ratePerSecond));
+        if (ids.isEmpty()) {
+            return;
+        }
+        
+        String token = UUID.randomUUID().toString();
+        if (outboxRepository.claim(ids, token, now, now.plusSeconds(leaseSeconds)) == 0) {
+            return;
+        }
+        
+        for (EmailOutbox email : outboxRepository.findByClaimToken(token)) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(senderAddress);
+            message.setTo(email.getRecipient());
+            message.setSubject(email.getSubject());
+            message.setText(email.getBody());
+            
+            // The outbox owns retries and backoff, so the dispatcher makes a single attempt
+            boolean accepted = mailDispatchService.submitOnce(message, new MailDispatchService.DeliveryListener() {
+                @Override
+                public void onSent() {
+                    outboxRepository.markSent(email.getId(), LocalDateTime.now());
+                }
+                
+                @Override
+                public void onFailed(Exception cause) {
+                    recordFailure(email, cause);
+                }
+            });
+            
+            if (!accepted) {
+                // Dispatch queue is saturated; release the row without counting an attempt
+                outboxRepository.reschedule(email.getId(), EmailOutbox.Status.PENDING, 0,
+                        email.getLastError(), LocalDateTime.now().plusSeconds(1));
+            }
+        }
+    }
+    
+    private void recordFailure(EmailOutbox email, Exception cause) {
+        int attempts = email.getAttempts() + 1;
+        String error = cause.getMessage();
+        if (attempts >= maxAttempts) {
+            log.error("Dead-lettering outbox email {} to {} after {} attempts", email.getId(), email.getRecipient(), attempts);
+            outboxRepository.reschedule(email.getId(), EmailOutbox.Status.DEAD, 1, error, LocalDateTime.now());
+        } else {
+            long delay = retryDelaySeconds * (1L << (attempts - 1));
+            outboxRepository.reschedule(email.getId(), EmailOutbox.Status.PENDING, 1, error,
+                    LocalDateTime.now().plusSeconds(delay));
+        }
+    }
+    
+    @Scheduled(fixedRate = 3600000) // Run every hour
+    public void purgeSent() {
+        outboxRepository.deleteSentBefore(LocalDateTime.now().minusDays(sentRetentionDays));
+    }
+}
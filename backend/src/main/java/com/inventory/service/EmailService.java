@@ -1,88 +1,96 @@
 package com.inventory.service;
 
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import com.inventory.entity.EmailOutbox;
+import com.inventory.entity.Notification;
 import org.springframework.stereotype.Service;
-import org.springframework.scheduling.annotation.Async;
+
+import java.util.List;
 
 @Service
 public class EmailService {
     
-    private final JavaMailSender mailSender;
-    
-    @Value("${app.email.sender.address}")
-    private String senderAddress;
-    
-    @Value("${app.email.sender.name}")
-    private String senderName;
+    private final EmailOutboxService emailOutboxService;
     
-    public EmailService(JavaMailSender mailSender) {
-        this.mailSender = mailSender;
+    public EmailService(EmailOutboxService emailOutboxService) {
+        this.emailOutboxService = emailOutboxService;
     }
     
-    @Async
     public void sendOtpEmail(String to, String otp) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(senderAddress);
-        message.setTo(to);
-        message.setSubject("Password Reset OTP - Inventory Management System");
-        message.setText("Your OTP for password reset is: " + otp + "\n\n" +
-                       "This OTP will expire in 5 minutes.\n\n" +
-                       "If you didn't request this, please ignore this email.");
-        mailSender.send(message);
+        emailOutboxService.enqueue(
+                to,
+                "Password Reset OTP - Inventory Management System",
+                "Your OTP for password reset is: " + otp + "\n\n" +
+                "This OTP will expire in 5 minutes.\n\n" +
+                "If you didn't request this, please ignore this email.",
+                EmailOutbox.Priority.HIGH,
+                null,
+                true
+        );
     }
     
-    @Async
     public void sendOrderConfirmationEmail(String to, String orderId, String totalAmount) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(senderAddress);
-        message.setTo(to);
-        message.setSubject("Order Confirmation - Order #" + orderId);
-        message.setText("Thank you for your order!\n\n" +
-                       "Order ID: " + orderId + "\n" +
-                       "Total Amount: $" + totalAmount + "\n\n" +
-                       "We will process your order shortly.");
-        mailSender.send(message);
+        emailOutboxService.enqueue(
+                to,
+                "Order Confirmation - Order #" + orderId,
+                "Thank you for your order!\n\n" +
+                "Order ID: " + orderId + "\n" +
+                "Total Amount: $" + totalAmount + "\n\n" +
+                "We will process your order shortly.",
+                EmailOutbox.Priority.NORMAL,
+                "order-confirmation:" + orderId
+        );
     }
     
-    @Async
     public void sendOrderNotificationEmail(String to, String orderId, String customerName) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(senderAddress);
-        message.setTo(to);
-        message.setSubject("New Order Received - Order #" + orderId);
-        message.setText("A new order has been placed:\n\n" +
-                       "Order ID: " + orderId + "\n" +
-                       "Customer: " + customerName + "\n\n" +
-                       "Please process this order.");
-        mailSender.send(message);
+        emailOutboxService.enqueue(
+                to,
+                "New Order Received - Order #" + orderId,
+                "A new order has been placed:\n\n" +
+                "Order ID: " + orderId + "\n" +
+                "Customer: " + customerName + "\n\n" +
+                "Please process this order.",
+                EmailOutbox.Priority.LOW,
+                "order-notification:" + orderId + ":" + to
+        );
     }
     
-    @Async
     public void sendLowStockAlertEmail(String to, String productName, Integer stock) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(senderAddress);
-        message.setTo(to);
-        message.setSubject("Low Stock Alert - " + productName);
-        message.setText("Low stock alert!\n\n" +
-                       "Product: " + productName + "\n" +
-                       "Current Stock: " + stock + "\n\n" +
-                       "Please restock this product.");
-        mailSender.send(message);
+        emailOutboxService.enqueue(
+                to,
+                "Low Stock Alert - " + productName,
+                "Low stock alert!\n\n" +
+                "Product: " + productName + "\n" +
+                "Current Stock: " + stock + "\n\n" +
+                "Please restock this product.",
+                EmailOutbox.Priority.LOW,
+                null
+        );
     }
     
-    @Async
     public void sendOrderStatusUpdateEmail(String to, String orderId, String status) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(senderAddress);
-        message.setTo(to);
-        message.setSubject("Order Status Updated - Order #" + orderId);
-        message.setText("Your order status has been updated.\n\n" +
-                       "Order ID: " + orderId + "\n" +
-                       "New Status: " + status + "\n\n" +
-                       "Thank you for shopping with us.");
-        mailSender.send(message);
+        emailOutboxService.enqueue(
+                to,
+                "Order Status Updated - Order #" + orderId,
+                "Your order status has been updated.\n\n" +
+                "Order ID: " + orderId + "\n" +
+                "New Status: " + status + "\n\n" +
+                "Thank you for shopping with us.",
+                EmailOutbox.Priority.NORMAL,
+                "order-status:" + orderId + ":" + status
+        );
+    }
+    
+    public void sendNotificationDigestEmail(String to, Notification.NotificationType type, List<String> messages) {
+        StringBuilder text = new StringBuilder("You have " + messages.size() + " new notification(s):\n\n");
+        for (String line : messages) {
+            text.append("- ").append(line).append("\n");
+        }
+        emailOutboxService.enqueue(
+                to,
+                messages.size() + " " + NotificationDigestService.describe(type) + " - Inventory Management System",
+                text.toString(),
+                EmailOutbox.Priority.LOW,
+                null
+        );
     }
 }
-
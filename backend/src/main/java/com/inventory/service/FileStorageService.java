@@ -1,156 +1,283 @@
 package com.inventory.service;
 
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.UUID;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 @Service
 public class FileStorageService {
     
+    private static final String BLOB_URL_PREFIX = "/api/images/products/blobs/";
+    // Originals only: blobs/{shard}/{sha256}.{ext}. The thumb/card/full variants beside them are
+    // regenerated in place when the variant specs change
+    private static final Pattern ORIGINAL_BLOB_URL = Pattern.compile("^/api/images/products/blobs/[0-9a-f]{2}/[0-9a-f]{64}\\.\\w+$");
+    // avatars/{userId}/{16 hex version}/file, written once per upload by AvatarImageService
+    private static final Pattern VERSIONED_AVATAR_URL = Pattern.compile("^/api/images/avatars/\\d+/[0-9a-f]{16}/[^/]+$");
+    
+    private static final Set<String> ALLOWED_CONTENT_TYPES = Set.of(
+            "image/jpeg", "image/png", "image/gif", "image/webp");
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of(".jpg", ".png", ".gif", ".webp");
+    
     @Value("${app.upload.product-images}")
     private String uploadDir;
     
-    public List<String> saveProductImages(Long productId, MultipartFile[] files) throws IOException {
-        List<String> imageUrls = new ArrayList<>();
+    @Value("${app.upload.max-image-bytes:10485760}")
+    private long maxImageBytes;
+    
+    @Value("${app.upload.max-images:10}")
+    private int maxImages;
+    
+    private final ThreadPoolExecutor uploadExecutor;
+    
+    public FileStorageService(@Value("${app.upload.workers:4}") int workers) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        // CallerRunsPolicy: when every worker is busy the request thread writes its own files
+        this.uploadExecutor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "upload-writer-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        uploadExecutor.shutdown();
+    }
+    
+    /**
+     * Checks count, size and declared type of every file before anything is written, so a
+     * bad batch fails without touching disk or the database.
+     */
+    public void validateImages(MultipartFile[] files) {
+        if (files == null) {
+            return;
+        }
+        if (files.length > maxImages) {
+            throw new RuntimeException("At most " + maxImages + " images can be uploaded at once");
+        }
+        for (MultipartFile file : files) {
+            if (file.isEmpty()) {
+                continue;
+            }
+            if (file.getSize() > maxImageBytes) {
+                throw new RuntimeException("Image " + file.getOriginalFilename() + " exceeds the "
+                        + (maxImageBytes / (1024 * 1024)) + " MB limit");
+            }
+            String contentType = file.getContentType();
+            if (contentType == null || !ALLOWED_CONTENT_TYPES.contains(contentType.toLowerCase(Locale.ROOT))) {
+                throw new RuntimeException("Unsupported image type for " + file.getOriginalFilename()
+                        + "; allowed: JPEG, PNG, GIF, WebP");
+            }
+        }
+    }
+    
+    /**
+     * Stores product images by content: each file is streamed to a temp file while its SHA-256
+     * is computed, then moved to blobs/{first two hex chars}/{hash}.{ext}. An identical upload
+     * reuses the existing blob, so duplicates cost no extra disk. Files are written in parallel
+     * and returned in upload order. Call this outside any transaction.
+     */
+    public List<StoredImage> saveProductImages(MultipartFile[] files) throws IOException {
+        validateImages(files);
         
         if (files == null || files.length == 0) {
-            return imageUrls;
+            return new ArrayList<>();
         }
         
-        // Create product-specific directory (e.g. uploads/products/{productId})
-        Path productDir = Paths.get(uploadDir, productId.toString());
-        Files.createDirectories(productDir);
-        
+        List<CompletableFuture<StoredImage>> futures = new ArrayList<>();
         for (MultipartFile file : files) {
             if (file.isEmpty()) {
                 continue;
             }
-            
-            // Generate unique filename
-            String originalFilename = file.getOriginalFilename();
-            String extension = originalFilename != null && originalFilename.contains(".") 
-                ? originalFilename.substring(originalFilename.lastIndexOf(".")) 
-                : "";
-            String filename = UUID.randomUUID().toString() + extension;
-            
-            // Save file
-            Path targetLocation = productDir.resolve(filename);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-            
-            // Return relative URL served by WebMvcConfig: /api/images/{productId}/{filename}
-            String imageUrl = "/api/images/products/" + productId + "/" + filename;
-            imageUrls.add(imageUrl);
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return storeBlob(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, uploadExecutor));
+        }
+        
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException uncheckedIOException) {
+                throw uncheckedIOException.getCause();
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException(cause);
         }
         
-        return imageUrls;
+        List<StoredImage> storedImages = new ArrayList<>();
+        futures.forEach(future -> storedImages.add(future.join()));
+        return storedImages;
     }
     
-    public void deleteProductImage(String imageUrl) throws IOException {
-        // Extract path from URL: /api/images/products/{productId}/{filename}
-        String path = imageUrl.replace("/api/images/products/", "");
-        Path filePath = Paths.get(uploadDir, path);
-        
-        if (Files.exists(filePath)) {
-            Files.delete(filePath);
+    private StoredImage storeBlob(MultipartFile file) throws IOException {
+        Path blobRoot = getBlobRoot();
+        Files.createDirectories(blobRoot);
+        Path temp = Files.createTempFile(blobRoot, ".upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream input = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(input, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String extension = detectExtension(temp);
+            // The declared content type was checked up front; this catches mislabelled files
+            if (!IMAGE_EXTENSIONS.contains(extension)) {
+                throw new RuntimeException("File " + file.getOriginalFilename() + " is not a valid image");
+            }
+            
+            String shard = hash.substring(0, 2);
+            Path target = blobRoot.resolve(shard).resolve(hash + extension);
+            Files.createDirectories(target.getParent());
+            if (Files.exists(target)) {
+                // Refresh the mtime so the sweeper's grace period covers the new reference
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            } else {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            
+            // Served by ImageController: /api/images/products/blobs/{shard}/{hash}.{ext}
+            return new StoredImage(BLOB_URL_PREFIX + shard + "/" + hash + extension, hash);
+        } finally {
+            Files.deleteIfExists(temp);
         }
     }
     
-    public void deleteProductDirectory(Long productId) throws IOException {
-        Path productDir = Paths.get(uploadDir, productId.toString());
-        if (Files.exists(productDir)) {
-            Files.walk(productDir)
-                    .sorted((a, b) -> b.compareTo(a))
-                    .forEach(path -> {
-                        try {
-                            Files.delete(path);
-                        } catch (IOException e) {
-                            throw new RuntimeException("Failed to delete file: " + path, e);
-                        }
-                    });
-        }
+    public Path getBlobRoot() {
+        return getProductImagesRoot().resolve("blobs");
+    }
+    
+    public boolean isBlobUrl(String imageUrl) {
+        return imageUrl.startsWith(BLOB_URL_PREFIX);
+    }
+    
+    /**
+     * True for URLs whose path carries a content hash, so the bytes behind them never change.
+     */
+    public boolean isImmutableUrl(String imageUrl) {
+        return ORIGINAL_BLOB_URL.matcher(imageUrl).matches() || VERSIONED_AVATAR_URL.matcher(imageUrl).matches();
     }
     
     /**
-     * Save user avatar image
-     * Similar to saveProductImages but for single avatar file
-     * @param userId - User ID
-     * @param file - Avatar image file
-     * @return Image URL
-     * @throws IOException
+     * Picks the extension from the file's magic bytes, so the same content always maps to
+     * the same blob whatever it was called. Returns "" for anything that is not an image.
      */
-    public String saveAvatarImage(Long userId, MultipartFile file) throws IOException {
-        if (file == null || file.isEmpty()) {
-            throw new IllegalArgumentException("Avatar file is required");
+    private static String detectExtension(Path file) throws IOException {
+        byte[] header = new byte[12];
+        int read;
+        try (InputStream input = Files.newInputStream(file)) {
+            read = input.readNBytes(header, 0, header.length);
         }
-        
-        // Get parent directory of product-images (uploads/)
-        Path uploadBasePath = Paths.get(uploadDir).getParent();
-        if (uploadBasePath == null) {
-            uploadBasePath = Paths.get(uploadDir);
+        if (read >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return ".jpg";
         }
-        
-        // Create avatars directory (e.g. uploads/avatars/{userId})
-        Path avatarDir = uploadBasePath.resolve("avatars").resolve(userId.toString());
-        Files.createDirectories(avatarDir);
-        
-        // Generate filename with extension
-        String originalFilename = file.getOriginalFilename();
-        String extension = originalFilename != null && originalFilename.contains(".") 
-            ? originalFilename.substring(originalFilename.lastIndexOf(".")) 
-            : ".jpg";
-        String filename = "avatar" + extension;
-        
-        // Delete old avatar if exists (delete all files in avatar directory)
-        if (Files.exists(avatarDir)) {
-            try {
-                Files.walk(avatarDir)
-                    .filter(Files::isRegularFile)
-                    .forEach(path -> {
-                        try {
-                            Files.delete(path);
-                        } catch (IOException e) {
-                            // Ignore if file doesn't exist
-                        }
-                    });
-            } catch (IOException e) {
-                // Continue if cleanup fails
-            }
+        if (read >= 8 && (header[0] & 0xFF) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G') {
+            return ".png";
         }
-        
-        // Save new avatar
-        Path targetLocation = avatarDir.resolve(filename);
-        Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-        
-        // Return relative URL: /api/images/avatars/{userId}/avatar.{ext}
-        return "/api/images/avatars/" + userId + "/" + filename;
+        if (read >= 4 && header[0] == 'G' && header[1] == 'I' && header[2] == 'F' && header[3] == '8') {
+            return ".gif";
+        }
+        if (read >= 12 && header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return ".webp";
+        }
+        return "";
     }
     
-    public void deleteAvatarImage(Long userId) throws IOException {
-        Path uploadBasePath = Paths.get(uploadDir).getParent();
-        if (uploadBasePath == null) {
-            uploadBasePath = Paths.get(uploadDir);
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
-        Path avatarDir = uploadBasePath.resolve("avatars").resolve(userId.toString());
-        if (Files.exists(avatarDir)) {
-            Files.walk(avatarDir)
-                    .sorted((a, b) -> b.compareTo(a))
-                    .forEach(path -> {
-                        try {
-                            Files.delete(path);
-                        } catch (IOException e) {
-                            throw new RuntimeException("Failed to delete avatar: " + path, e);
-                        }
-                    });
+    }
+    
+    public record StoredImage(String url, String contentHash) {
+    }
+    
+    /**
+     * Maps an /api/images/** URL to its file under the upload root, rejecting paths that
+     * would escape it.
+     */
+    public Path resolveImagePath(String imageUrl) {
+        return resolveStorageKey(imageUrl.replaceFirst("^/api/images/", ""));
+    }
+    
+    public String toImageUrl(Path file) {
+        return "/api/images/" + toStorageKey(file);
+    }
+    
+    /**
+     * Path of a file relative to the upload root, with forward slashes; stable across
+     * working directories and safe to persist.
+     */
+    public String toStorageKey(Path file) {
+        return getUploadRoot().relativize(file.toAbsolutePath().normalize()).toString().replace('\\', '/');
+    }
+    
+    public Path resolveStorageKey(String storageKey) {
+        Path root = getUploadRoot();
+        Path resolved = root.resolve(storageKey).normalize();
+        if (!resolved.startsWith(root) || resolved.equals(root)) {
+            throw new IllegalArgumentException("Invalid storage path: " + storageKey);
         }
+        return resolved;
+    }
+    
+    public Path getUploadRoot() {
+        Path uploadBasePath = Paths.get(uploadDir).toAbsolutePath().normalize().getParent();
+        return uploadBasePath != null ? uploadBasePath : Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+    
+    public Path getProductImagesRoot() {
+        return Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+    
+    // Pre-content-addressing uploads live in uploads/products/{productId}
+    public Path getProductDirectory(Long productId) {
+        return getProductImagesRoot().resolve(productId.toString());
+    }
+    
+    public Path getAvatarsRoot() {
+        return getUploadRoot().resolve("avatars");
+    }
+    
+    public Path getAvatarDirectory(Long userId) {
+        return getAvatarsRoot().resolve(userId.toString());
     }
 }
-
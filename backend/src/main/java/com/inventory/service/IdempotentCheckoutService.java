@@ -0,0 +1,192 @@
+package com.inventory.service;
+
+import com.inventory.dto.CheckoutRequest;
+import com.inventory.dto.OrderDto;
+import com.inventory.entity.IdempotencyKey;
+import com.inventory.exception.ServiceBusyException;
+import com.inventory.repository.IdempotencyKeyRepository;
+import com.inventory.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Makes checkout safe to retry with an Idempotency-Key header. The key is inserted into
+ * idempotency_keys in the same transaction as the order, so its unique (user, key) index lets
+ * exactly one checkout commit; a replay returns that order instead of placing another.
+ * Duplicates arriving while the first is still running wait for its result: on this instance
+ * through an in-memory future, across instances on the index lock the first insert holds.
+ */
+@Service
+public class IdempotentCheckoutService {
+    
+    private static final Logger log = LoggerFactory.getLogger(IdempotentCheckoutService.class);
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final String KEY_REUSED = "Idempotency-Key was already used for a different checkout request";
+    
+    private final OrderService orderService;
+    private final OrderQueryService orderQueryService;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
+    private final TransactionTemplate transactionTemplate;
+    
+    // "userId:key" -> the checkout currently running for it
+    private final Map<String, InFlightCheckout> inFlight = new ConcurrentHashMap<>();
+    
+    @Value("${app.orders.idempotency-wait-ms:30000}")
+    private long waitMs;
+    
+    @Value("${app.orders.idempotency-ttl-hours:24}")
+    private long ttlHours;
+    
+    public IdempotentCheckoutService(OrderService orderService, OrderQueryService orderQueryService,
+                                     IdempotencyKeyRepository idempotencyKeyRepository,
+                                     UserRepository userRepository, CurrentUserService currentUserService,
+                                     PlatformTransactionManager transactionManager) {
+        this.orderService = orderService;
+        this.orderQueryService = orderQueryService;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.userRepository = userRepository;
+        this.currentUserService = currentUserService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    /**
+     * Runs checkout once per (user, key). Without a key it behaves like a plain checkout.
+     */
+    public OrderDto checkout(CheckoutRequest request, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return orderService.checkout(request);
+        }
+        String key = idempotencyKey.trim();
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        
+        Long userId = currentUserService.getCurrentUserId();
+        String requestHash = requestHash(request);
+        String slot = userId + ":" + key;
+        
+        InFlightCheckout mine = new InFlightCheckout(requestHash, new CompletableFuture<>());
+        InFlightCheckout running = inFlight.putIfAbsent(slot, mine);
+        if (running != null) {
+            if (!running.requestHash().equals(requestHash)) {
+                throw new RuntimeException(KEY_REUSED);
+            }
+            return await(running.result());
+        }
+        
+        try {
+            OrderDto result = execute(userId, key, requestHash, request);
+            mine.result().complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(slot, mine);
+        }
+    }
+    
+    @Scheduled(cron = "${app.orders.idempotency-purge-cron:0 45 4 * * *}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(ttlHours));
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+    
+    private OrderDto execute(Long userId, String key, String requestHash, CheckoutRequest request) {
+        Optional<OrderDto> replay = findCompleted(userId, key, requestHash);
+        if (replay.isPresent()) {
+            return replay.get();
+        }
+        
+        try {
+            return transactionTemplate.execute(status -> {
+                IdempotencyKey row = new IdempotencyKey();
+                row.setUser(userRepository.getReferenceById(userId));
+                row.setIdempotencyKey(key);
+                row.setRequestHash(requestHash);
+                // Flushed first: a concurrent duplicate on another instance blocks on this row
+                // until we commit, then fails the unique check
+                idempotencyKeyRepository.saveAndFlush(row);
+                
+                OrderDto order = orderService.checkout(request);
+                row.setOrderId(order.getId());
+                return order;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Lost the race for the key: the winner has committed by the time our insert fails
+            return findCompleted(userId, key, requestHash).orElseThrow(() -> e);
+        }
+    }
+    
+    private Optional<OrderDto> findCompleted(Long userId, String key, String requestHash) {
+        Optional<IdempotencyKey> row = idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, key)
+                .filter(existing -> existing.getOrderId() != null);
+        if (row.isEmpty()) {
+            return Optional.empty();
+        }
+        if (!row.get().getRequestHash().equals(requestHash)) {
+            throw new RuntimeException(KEY_REUSED);
+        }
+        return Optional.of(orderQueryService.getOrderDto(row.get().getOrderId()));
+    }
+    
+    private OrderDto await(CompletableFuture<OrderDto> running) {
+        try {
+            return running.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("A checkout with this Idempotency-Key is still in progress");
+        } catch (TimeoutException e) {
+            throw new ServiceBusyException("A checkout with this Idempotency-Key is still in progress");
+        } catch (ExecutionException e) {
+            // The duplicate fails the same way the original did
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+    
+    private static String requestHash(CheckoutRequest request) {
+        String canonical = String.join("\n",
+                Objects.toString(request.getShippingAddress(), ""),
+                Objects.toString(request.getPhoneNumber(), ""),
+                Objects.toString(request.getSpecialInstructions(), ""),
+                Objects.toString(request.getPreferredDeliveryDate(), ""));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private record InFlightCheckout(String requestHash, CompletableFuture<OrderDto> result) {
+    }
+}
@@ -0,0 +1,120 @@
+package com.inventory.service;
+
+import com.inventory.repository.ProductImageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Deletes content-addressed product image blobs that no product_images row references
+ * any more, together with their variants. Blobs younger than the grace period are kept,
+ * so an upload whose row is not committed yet is never collected. A blob is only marked on
+ * the sweep that first finds it unreferenced and deleted on a later one if its mtime has not
+ * moved since, because a duplicate upload touches the mtime before its row commits.
+ */
+@Service
+public class ImageBlobSweeper {
+    
+    private static final Logger log = LoggerFactory.getLogger(ImageBlobSweeper.class);
+    
+    private static final List<String> VARIANT_DIRS = List.of(
+            ImageVariantService.THUMB, ImageVariantService.CARD, ImageVariantService.FULL);
+    
+    private final ProductImageRepository productImageRepository;
+    private final FileStorageService fileStorageService;
+    
+    @Value("${app.images.blob-grace-minutes:60}")
+    private long graceMinutes;
+    
+    // Unreferenced blobs seen by the previous sweep and their mtime at that time
+    private Map<Path, FileTime> marked = new HashMap<>();
+    
+    public ImageBlobSweeper(ProductImageRepository productImageRepository, FileStorageService fileStorageService) {
+        this.productImageRepository = productImageRepository;
+        this.fileStorageService = fileStorageService;
+    }
+    
+    @Scheduled(cron = "${app.images.sweep-cron:0 20 * * * *}")
+    public void sweep() {
+        Path blobRoot = fileStorageService.getBlobRoot();
+        if (!Files.isDirectory(blobRoot)) {
+            return;
+        }
+        
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(graceMinutes));
+        Map<Path, FileTime> unreferenced = new HashMap<>();
+        int deleted = 0;
+        long bytes = 0;
+        try (Stream<Path> shards = Files.list(blobRoot)) {
+            for (Path shard : (Iterable<Path>) shards.filter(Files::isDirectory)::iterator) {
+                try (Stream<Path> blobs = Files.list(shard)) {
+                    for (Path blob : (Iterable<Path>) blobs.filter(Files::isRegularFile)::iterator) {
+                        long size = sweepBlob(shard, blob, cutoff, unreferenced);
+                        if (size >= 0) {
+                            deleted++;
+                            bytes += size;
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Blob sweep aborted: {}", e.getMessage());
+        }
+        marked = unreferenced;
+        
+        if (deleted > 0) {
+            log.info("Swept {} unreferenced image blobs, reclaimed {} bytes", deleted, bytes);
+        }
+    }
+    
+    /**
+     * @return bytes reclaimed, or -1 if the blob was kept
+     */
+    private long sweepBlob(Path shard, Path blob, Instant cutoff, Map<Path, FileTime> unreferenced) throws IOException {
+        String filename = blob.getFileName().toString();
+        if (filename.startsWith(".")) {
+            return -1;
+        }
+        FileTime modified = Files.getLastModifiedTime(blob);
+        if (modified.toInstant().isAfter(cutoff)) {
+            return -1;
+        }
+        
+        int dot = filename.indexOf('.');
+        String hash = dot > 0 ? filename.substring(0, dot) : filename;
+        if (productImageRepository.existsByContentHash(hash)) {
+            return -1;
+        }
+        
+        // First sighting, or touched by an upload since: mark and decide next sweep. The
+        // mtime is read again last so a touch during the reference check is also seen.
+        if (!modified.equals(marked.get(blob)) || !modified.equals(Files.getLastModifiedTime(blob))) {
+            unreferenced.put(blob, Files.getLastModifiedTime(blob));
+            return -1;
+        }
+        
+        long size = Files.size(blob);
+        Files.deleteIfExists(blob);
+        for (String variant : VARIANT_DIRS) {
+            Path variantFile = shard.resolve(variant).resolve(hash + ".jpg");
+            if (Files.exists(variantFile)) {
+                size += Files.size(variantFile);
+                Files.delete(variantFile);
+            }
+        }
+        return size;
+    }
+}
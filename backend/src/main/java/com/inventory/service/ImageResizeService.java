@@ -0,0 +1,232 @@
+package com.inventory.service;
+
+import com.inventory.config.ImageProperties;
+import com.inventory.exception.ServiceBusyException;
+import com.inventory.util.ImageResizer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Resizes images to allowlisted widths on first request and keeps the results in a disk
+ * cache bounded by total bytes, evicting least recently used entries. Concurrent requests
+ * for the same source and width share one resize.
+ */
+@Service
+public class ImageResizeService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageResizeService.class);
+
+    private final FileStorageService fileStorageService;
+    private final ImageProperties properties;
+    private final Set<Integer> allowedWidths;
+    private final ThreadPoolExecutor executor;
+
+    // Cache key -> file size, in access order; guarded by itself
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    private Path cacheDir;
+
+    public ImageResizeService(FileStorageService fileStorageService, ImageProperties properties) {
+        this.fileStorageService = fileStorageService;
+        this.properties = properties;
+        this.allowedWidths = Set.copyOf(properties.getResizeWidths());
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-resize-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Rebuilds the LRU index from the files left by a previous run, oldest first.
+     */
+    @PostConstruct
+    void init() throws IOException {
+        cacheDir = fileStorageService.getUploadRoot().resolve(".resize-cache");
+        Files.createDirectories(cacheDir);
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(cacheDir)) {
+            // Skip ".tmp-" leftovers of interrupted writes
+            files = stream.filter(path -> !path.getFileName().toString().startsWith(".")
+                            && path.getFileName().toString().endsWith(".jpg"))
+                    .sorted(Comparator.comparing(ImageResizeService::lastModified))
+                    .toList();
+        }
+        synchronized (entries) {
+            for (Path file : files) {
+                long size = Files.size(file);
+                entries.put(file.getFileName().toString(), size);
+                totalBytes += size;
+            }
+        }
+        evictIfNeeded();
+    }
+
+    public boolean isAllowedWidth(int width) {
+        return allowedWidths.contains(width);
+    }
+
+    /**
+     * Opens the cached resize of {@code source}, generating it if needed. The channel is opened
+     * while the entry is still indexed, so a concurrent eviction that deletes the file cannot
+     * pull it out from under the caller, which must close the channel. Original blobs and versioned
+     * avatars never change under their URL, so they are keyed on the path alone; other sources
+     * also key on their modification time so a replaced file never serves a stale resize.
+     */
+    public FileChannel open(Path source, int width) throws IOException {
+        String storageKey = fileStorageService.toStorageKey(source);
+        String version = fileStorageService.isImmutableUrl(fileStorageService.toImageUrl(source))
+                ? "immutable"
+                : Long.toString(Files.getLastModifiedTime(source).toMillis());
+        String key = cacheKey(storageKey, version, width);
+        Path target = cacheDir.resolve(key);
+
+        // Retried once in case the entry was evicted between being generated and opened
+        for (int attempt = 0; attempt < 2; attempt++) {
+            FileChannel channel = openCached(key, target);
+            if (channel != null) {
+                return channel;
+            }
+            awaitResize(source, width, key, target);
+        }
+        throw new IOException("Resized " + source.getFileName() + " was evicted before it could be served");
+    }
+
+    private FileChannel openCached(String key, Path target) throws IOException {
+        synchronized (entries) {
+            if (entries.get(key) == null) {
+                return null;
+            }
+            try {
+                return FileChannel.open(target, StandardOpenOption.READ);
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+        }
+    }
+
+    private void awaitResize(Path source, int width, String key, Path target) throws IOException {
+        CompletableFuture<Path> future;
+        try {
+            future = inFlight.computeIfAbsent(key, k -> {
+                CompletableFuture<Path> created = CompletableFuture.supplyAsync(() -> generate(source, width, key, target), executor);
+                created.whenComplete((path, error) -> inFlight.remove(k));
+                return created;
+            });
+        } catch (RejectedExecutionException e) {
+            throw new ServiceBusyException("Image resizing is busy, please retry");
+        }
+
+        try {
+            future.get(properties.getResizeTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while resizing " + source.getFileName());
+        } catch (TimeoutException e) {
+            throw new IOException("Timed out resizing " + source.getFileName());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException unchecked ? unchecked.getCause() : e.getCause();
+            throw cause instanceof IOException io ? io : new IOException(cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Path generate(Path source, int width, String key, Path target) {
+        try {
+            ImageResizer.writeJpeg(ImageResizer.scaleToWidth(ImageResizer.read(source, properties.getMaxPixels()), width),
+                    properties.getResizeQuality(), target);
+            long size = Files.size(target);
+            synchronized (entries) {
+                Long previous = entries.put(key, size);
+                totalBytes += size - (previous != null ? previous : 0);
+            }
+            evictIfNeeded();
+            return target;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void evictIfNeeded() {
+        while (true) {
+            String victim;
+            synchronized (entries) {
+                if (totalBytes <= properties.getResizeCacheMaxBytes() || entries.isEmpty()) {
+                    return;
+                }
+                Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+                Map.Entry<String, Long> entry = eldest.next();
+                victim = entry.getKey();
+                totalBytes -= entry.getValue();
+                eldest.remove();
+            }
+            try {
+                // Channels already handed out keep reading the unlinked file
+                Files.deleteIfExists(cacheDir.resolve(victim));
+            } catch (IOException e) {
+                log.warn("Failed to evict resized image {}: {}", victim, e.getMessage());
+            }
+        }
+    }
+
+    private static String cacheKey(String storageKey, String version, int width) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((storageKey + "|" + version + "|" + width).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16) + "-" + width + ".jpg";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
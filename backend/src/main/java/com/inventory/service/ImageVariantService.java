@@ -0,0 +1,198 @@
+package com.inventory.service;
+
+import com.inventory.config.ImageProperties;
+import com.inventory.dto.ImageVariantsDto;
+import com.inventory.entity.ProductImage;
+import com.inventory.repository.ProductImageRepository;
+import com.inventory.util.ImageResizer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates the fixed thumb/card/full JPEG variants of product images on a bounded pool.
+ * Variants live next to the original under a directory named after the variant. A periodic
+ * backfill picks up images whose variants are missing, failed, or were generated with an
+ * older size/quality configuration.
+ */
+@Service
+public class ImageVariantService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantService.class);
+    
+    public static final String THUMB = "thumb";
+    public static final String CARD = "card";
+    public static final String FULL = "full";
+    
+    private final ProductImageRepository productImageRepository;
+    private final FileStorageService fileStorageService;
+    private final Map<String, ImageProperties.Variant> variants;
+    private final int specVersion;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    
+    // Keyset cursor for the backfill, so images that keep failing cannot starve the rest
+    private volatile long backfillCursor;
+    
+    public ImageVariantService(ProductImageRepository productImageRepository,
+                               FileStorageService fileStorageService,
+                               ImageProperties properties) {
+        this.productImageRepository = productImageRepository;
+        this.fileStorageService = fileStorageService;
+        this.maxPixels = properties.getMaxPixels();
+        this.variants = Map.of(THUMB, properties.getThumb(), CARD, properties.getCard(), FULL, properties.getFull());
+        this.specVersion = Objects.hash(
+                properties.getThumb().getWidth(), properties.getThumb().getQuality(),
+                properties.getCard().getWidth(), properties.getCard().getQuality(),
+                properties.getFull().getWidth(), properties.getFull().getQuality()) & Integer.MAX_VALUE;
+        
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+    
+    /**
+     * Queues variant generation for the given images once the current transaction commits.
+     */
+    public void scheduleGeneration(List<Long> imageIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    imageIds.forEach(ImageVariantService.this::submit);
+                }
+            });
+        } else {
+            imageIds.forEach(this::submit);
+        }
+    }
+    
+    public ImageVariantsDto toVariants(ProductImage image) {
+        String original = image.getImageUrl();
+        if (image.getVariantsVersion() == null) {
+            return new ImageVariantsDto(original, original, original, original);
+        }
+        // Variants are regenerated in place when the specs change, so their URLs carry the
+        // spec version to stay safe under immutable caching
+        String version = "?v=" + Integer.toHexString(image.getVariantsVersion());
+        return new ImageVariantsDto(original, variantUrl(original, THUMB) + version,
+                variantUrl(original, CARD) + version, variantUrl(original, FULL) + version);
+    }
+    
+    public List<Path> variantPaths(String imageUrl) {
+        return variants.keySet().stream()
+                .map(name -> fileStorageService.resolveImagePath(variantUrl(imageUrl, name)))
+                .toList();
+    }
+    
+    @Scheduled(fixedDelayString = "${app.images.backfill-interval-ms:300000}",
+            initialDelayString = "${app.images.backfill-initial-delay-ms:60000}")
+    public void backfill() {
+        int capacity = executor.getQueue().remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        List<Long> ids = productImageRepository.findIdsWithStaleVariants(specVersion, backfillCursor, PageRequest.of(0, capacity));
+        if (ids.isEmpty()) {
+            backfillCursor = 0;
+            return;
+        }
+        ids.forEach(this::submit);
+        backfillCursor = ids.get(ids.size() - 1);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    private void submit(Long imageId) {
+        if (!inFlight.add(imageId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(imageId);
+                } finally {
+                    inFlight.remove(imageId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The backfill retries it once the queue drains
+            inFlight.remove(imageId);
+            log.debug("Variant queue full, deferring image {}", imageId);
+        }
+    }
+    
+    private void generate(Long imageId) {
+        ProductImage image = productImageRepository.findById(imageId).orElse(null);
+        if (image == null) {
+            return;
+        }
+        
+        String imageUrl = image.getImageUrl();
+        // Identical uploads share a blob and therefore its variants
+        if (productImageRepository.existsByImageUrlAndVariantsVersion(imageUrl, specVersion)) {
+            productImageRepository.markVariantsGenerated(imageId, specVersion);
+            return;
+        }
+        
+        try {
+            Path original = fileStorageService.resolveImagePath(imageUrl);
+            if (!Files.exists(original)) {
+                log.warn("Original missing for image {}: {}", imageId, imageUrl);
+                return;
+            }
+            
+            BufferedImage source = ImageResizer.read(original, maxPixels);
+            for (Map.Entry<String, ImageProperties.Variant> entry : variants.entrySet()) {
+                ImageProperties.Variant spec = entry.getValue();
+                ImageResizer.writeJpeg(ImageResizer.scaleToWidth(source, spec.getWidth()), spec.getQuality(),
+                        fileStorageService.resolveImagePath(variantUrl(imageUrl, entry.getKey())));
+            }
+            productImageRepository.markVariantsGenerated(imageId, specVersion);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to generate variants for image {}: {}", imageId, e.getMessage());
+        }
+    }
+    
+    /**
+     * /api/images/products/blobs/ab/abcd.png -> /api/images/products/blobs/ab/{variant}/abcd.jpg
+     */
+    static String variantUrl(String imageUrl, String variant) {
+        int slash = imageUrl.lastIndexOf('/');
+        String filename = imageUrl.substring(slash + 1);
+        int dot = filename.lastIndexOf('.');
+        String stem = dot > 0 ? filename.substring(0, dot) : filename;
+        return imageUrl.substring(0, slash + 1) + variant + "/" + stem + ".jpg";
+    }
+}
@@ -0,0 +1,135 @@
+package com.inventory.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps OTPs in memory and expires them with a hashed timer wheel: each entry is filed in
+ * the slot of its expiry second, and every tick only inspects the slot under the cursor.
+ */
+@Service
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpStore implements OtpStore {
+    
+    private static final int WHEEL_SLOTS = 512;
+    private static final long TICK_MS = 1000;
+    
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final List<Queue<Timeout>> wheel;
+    private volatile long lastTick;
+    
+    @Value("${app.otp.max-attempts:5}")
+    private int maxAttempts;
+    
+    public InMemoryOtpStore() {
+        this.wheel = new ArrayList<>(WHEEL_SLOTS);
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel.add(new ConcurrentLinkedQueue<>());
+        }
+        this.lastTick = System.currentTimeMillis() / TICK_MS;
+    }
+    
+    @Override
+    public void put(String email, String otp, Duration ttl) {
+        long expiresAt = System.currentTimeMillis() + ttl.toMillis();
+        Entry entry = new Entry(otp, expiresAt);
+        entries.put(email, entry);
+        schedule(email, entry);
+    }
+    
+    @Override
+    public boolean verify(String email, String otp, boolean consume) {
+        Entry entry = entries.get(email);
+        if (entry == null) {
+            return false;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(email, entry);
+            return false;
+        }
+        
+        if (!matches(entry.otp, otp)) {
+            if (entry.attempts.incrementAndGet() >= maxAttempts) {
+                entries.remove(email, entry);
+            }
+            return false;
+        }
+        
+        // remove(key, value) succeeds for exactly one caller, which makes consumption single-use
+        return !consume || entries.remove(email, entry);
+    }
+    
+    @Scheduled(fixedRate = TICK_MS)
+    public void advance() {
+        long now = System.currentTimeMillis();
+        long currentTick = now / TICK_MS;
+        
+        // Catch up on every slot passed since the last tick, at most one full turn
+        long fromTick = Math.max(lastTick + 1, currentTick - WHEEL_SLOTS + 1);
+        for (long tick = fromTick; tick <= currentTick; tick++) {
+            Queue<Timeout> slot = wheel.get((int) (tick % WHEEL_SLOTS));
+            int pending = slot.size();
+            for (int i = 0; i < pending; i++) {
+                Timeout timeout = slot.poll();
+                if (timeout == null) {
+                    break;
+                }
+                if (entries.get(timeout.email) != timeout.entry) {
+                    // Replaced or already consumed
+                    continue;
+                }
+                if (timeout.entry.isExpired(now)) {
+                    entries.remove(timeout.email, timeout.entry);
+                } else {
+                    // TTL longer than one wheel turn; file it again
+                    slot.offer(timeout);
+                }
+            }
+        }
+        lastTick = currentTick;
+    }
+    
+    private void schedule(String email, Entry entry) {
+        long expiryTick = (entry.expiresAt + TICK_MS - 1) / TICK_MS;
+        wheel.get((int) (expiryTick % WHEEL_SLOTS)).offer(new Timeout(email, entry));
+    }
+    
+    private static boolean matches(String expected, String actual) {
+        if (actual == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                actual.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static final class Entry {
+        private final String otp;
+        private final long expiresAt;
+        private final AtomicInteger attempts = new AtomicInteger();
+        
+        private Entry(String otp, long expiresAt) {
+            this.otp = otp;
+            this.expiresAt = expiresAt;
+        }
+        
+        private boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
+    
+    private record Timeout(String email, Entry entry) {
+    }
+}
@@ -0,0 +1,257 @@
+package com.inventory.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded mail pipeline. Messages are queued and drained by a small pool of workers that
+ * send each batch over a single SMTP session; failed messages are retried with
+ * exponential backoff.
+ */
+@Service
+public class MailDispatchService {
+    
+    private static final Logger log = LoggerFactory.getLogger(MailDispatchService.class);
+    
+    private final JavaMailSender mailSender;
+    private final BlockingQueue<OutgoingMail> queue;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService retryScheduler;
+    
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final long offerTimeoutMs;
+    
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+    private final Timer sendTimer;
+    
+    private volatile boolean running = true;
+    
+    public MailDispatchService(JavaMailSender mailSender,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.mail.queue-capacity:1000}") int queueCapacity,
+                               @Value("${app.mail.workers:2}") int workerCount,
+                               @Value("${app.mail.batch-size:50}") int batchSize,
+                               @Value("${app.mail.max-attempts:4}") int maxAttempts,
+                               @Value("${app.mail.backoff-ms:1000}") long backoffMs,
+                               @Value("${app.mail.offer-timeout-ms:50}") long offerTimeoutMs) {
+        this.mailSender = mailSender;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        
+        this.sentCounter = meterRegistry.counter("mail.sent");
+        this.retriedCounter = meterRegistry.counter("mail.retried");
+        this.failedCounter = meterRegistry.counter("mail.failed");
+        this.rejectedCounter = meterRegistry.counter("mail.rejected");
+        this.sendTimer = meterRegistry.timer("mail.send.latency");
+        meterRegistry.gauge("mail.queue.depth", queue, BlockingQueue::size);
+        
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "mail-dispatch-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mail-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::drainLoop);
+        }
+    }
+    
+    /**
+     * Queues a message for delivery. If the queue stays full for longer than the offer
+     * timeout the message is rejected rather than blocking the caller.
+     *
+     * @return false if the message was rejected because the queue is full
+     */
+    public boolean submit(SimpleMailMessage message) {
+        return submit(message, DeliveryListener.NONE);
+    }
+    
+    /**
+     * Queues a message and reports its final outcome, after any retries, to the listener.
+     * The listener is invoked on a dispatch worker thread.
+     */
+    public boolean submit(SimpleMailMessage message, DeliveryListener listener) {
+        return offer(new OutgoingMail(message, 0, maxAttempts, listener));
+    }
+    
+    /**
+     * Queues a message for a single delivery attempt, for callers that schedule their own
+     * retries; the listener learns the outcome of that attempt.
+     */
+    public boolean submitOnce(SimpleMailMessage message, DeliveryListener listener) {
+        return offer(new OutgoingMail(message, 0, 1, listener));
+    }
+    
+    private boolean offer(OutgoingMail mail) {
+        SimpleMailMessage message = mail.message();
+        try {
+            if (queue.offer(mail, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejectedCounter.increment();
+        log.warn("Mail queue full, dropping message to {}", (Object) message.getTo());
+        return false;
+    }
+    
+    public int getQueueDepth() {
+        return queue.size();
+    }
+    
+    private void drainLoop() {
+        List<OutgoingMail> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OutgoingMail first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                sendBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Unexpected error in mail dispatch worker", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void sendBatch(List<OutgoingMail> batch) {
+        SimpleMailMessage[] messages = batch.stream()
+                .map(OutgoingMail::message)
+                .toArray(SimpleMailMessage[]::new);
+        
+        long start = System.nanoTime();
+        MailException failure = null;
+        try {
+            // JavaMailSender sends the whole array over one transport connection
+            mailSender.send(messages);
+        } catch (MailException e) {
+            failure = e;
+        } finally {
+            // Only the SMTP exchange; listener callbacks are not part of send latency
+            sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        
+        if (failure == null) {
+            batch.forEach(this::delivered);
+        } else if (failure instanceof MailSendException sendFailure) {
+            Map<Object, Exception> failures = sendFailure.getFailedMessages();
+            for (OutgoingMail mail : batch) {
+                if (failures.isEmpty() || failures.containsKey(mail.message())) {
+                    retryOrGiveUp(mail, sendFailure);
+                } else {
+                    delivered(mail);
+                }
+            }
+        } else {
+            MailException cause = failure;
+            batch.forEach(mail -> retryOrGiveUp(mail, cause));
+        }
+    }
+    
+    private void delivered(OutgoingMail mail) {
+        sentCounter.increment();
+        notifyListener(() -> mail.listener().onSent());
+    }
+    
+    private void retryOrGiveUp(OutgoingMail mail, Exception cause) {
+        int nextAttempt = mail.attempt() + 1;
+        if (nextAttempt >= mail.maxAttempts() || !running) {
+            giveUp(mail, cause);
+            return;
+        }
+        
+        retriedCounter.increment();
+        long delay = backoffMs * (1L << (nextAttempt - 1));
+        retryScheduler.schedule(() -> {
+            if (!queue.offer(new OutgoingMail(mail.message(), nextAttempt, mail.maxAttempts(), mail.listener()))) {
+                giveUp(mail, new IllegalStateException("Mail queue full"));
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+    
+    private void giveUp(OutgoingMail mail, Exception cause) {
+        failedCounter.increment();
+        log.error("Giving up on mail to {} after {} attempts", (Object) mail.message().getTo(), mail.attempt() + 1, cause);
+        notifyListener(() -> mail.listener().onFailed(cause));
+    }
+    
+    private void notifyListener(Runnable callback) {
+        try {
+            callback.run();
+        } catch (RuntimeException e) {
+            log.error("Mail delivery listener failed", e);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        retryScheduler.shutdownNow();
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Mail dispatch stopped with {} messages still queued", queue.size());
+            workers.shutdownNow();
+        }
+    }
+    
+    public interface DeliveryListener {
+        DeliveryListener NONE = new DeliveryListener() {
+            @Override
+            public void onSent() {
+            }
+            
+            @Override
+            public void onFailed(Exception cause) {
+            }
+        };
+        
+        void onSent();
+        
+        void onFailed(Exception cause);
+    }
+    
+    private record OutgoingMail(SimpleMailMessage message, int attempt, int maxAttempts, DeliveryListener listener) {
+    }
+}
@@ -0,0 +1,125 @@
+package com.inventory.service;
+
+import com.inventory.entity.Notification;
+import com.inventory.entity.PendingNotification;
+import com.inventory.entity.User;
+import com.inventory.repository.NotificationRepository;
+import com.inventory.repository.PendingNotificationRepository;
+import com.inventory.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coalesces notifications per recipient and type over a short window, so a burst of
+ * alerts becomes one notification row and at most one email per user. Queued notifications
+ * are stored in pending_notifications, so they survive a restart and are discarded along
+ * with a rolled-back transaction.
+ */
+@Service
+public class NotificationDigestService {
+    
+    private final NotificationRepository notificationRepository;
+    private final PendingNotificationRepository pendingNotificationRepository;
+    private final UserRepository userRepository;
+    private final EmailService emailService;
+    
+    @Value("${app.notifications.digest-batch-size:1000}")
+    private int batchSize;
+    
+    public NotificationDigestService(NotificationRepository notificationRepository,
+                                     PendingNotificationRepository pendingNotificationRepository,
+                                     UserRepository userRepository, EmailService emailService) {
+        this.notificationRepository = notificationRepository;
+        this.pendingNotificationRepository = pendingNotificationRepository;
+        this.userRepository = userRepository;
+        this.emailService = emailService;
+    }
+    
+    /**
+     * Queues a notification for the next digest. The row joins the caller's transaction when
+     * there is one, so rolled-back work never notifies anyone.
+     *
+     * @param dedupeKey optional key; within one digest only the latest entry per key is kept
+     */
+    public void enqueue(User recipient, Notification.NotificationType type, String message, String dedupeKey) {
+        PendingNotification notification = new PendingNotification();
+        notification.setUserId(recipient.getId());
+        notification.setEmail(recipient.getEmail());
+        notification.setEmailEnabled(Boolean.TRUE.equals(recipient.getEmailNotifications()));
+        notification.setType(type);
+        notification.setMessage(message);
+        notification.setDedupeKey(dedupeKey);
+        pendingNotificationRepository.save(notification);
+    }
+    
+    /**
+     * Turns the queued rows into digest notifications and outbox emails. Everything happens in
+     * one transaction, so a crash part way leaves the queue untouched.
+     */
+    @Scheduled(fixedDelayString = "${app.notifications.digest-window-ms:30000}")
+    @Transactional
+    public void flush() {
+        List<PendingNotification> batch = pendingNotificationRepository.findBatchForUpdate(PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return;
+        }
+        
+        Map<DigestKey, Map<Object, PendingNotification>> groups = new LinkedHashMap<>();
+        for (PendingNotification next : batch) {
+            Object entryKey = next.getDedupeKey() != null ? next.getDedupeKey() : next.getId();
+            groups.computeIfAbsent(new DigestKey(next.getUserId(), next.getType()), k -> new LinkedHashMap<>())
+                    .put(entryKey, next);
+        }
+        
+        List<Notification> rows = new ArrayList<>(groups.size());
+        for (Map.Entry<DigestKey, Map<Object, PendingNotification>> group : groups.entrySet()) {
+            List<String> messages = group.getValue().values().stream().map(PendingNotification::getMessage).toList();
+            
+            Notification notification = new Notification();
+            notification.setUser(userRepository.getReferenceById(group.getKey().userId()));
+            notification.setMessage(toDigestMessage(group.getKey().type(), messages));
+            notification.setType(group.getKey().type());
+            notification.setIsRead(false);
+            rows.add(notification);
+        }
+        notificationRepository.saveAll(rows);
+        
+        for (Map.Entry<DigestKey, Map<Object, PendingNotification>> group : groups.entrySet()) {
+            List<PendingNotification> entries = new ArrayList<>(group.getValue().values());
+            PendingNotification latest = entries.get(entries.size() - 1);
+            if (Boolean.TRUE.equals(latest.getEmailEnabled())) {
+                emailService.sendNotificationDigestEmail(latest.getEmail(), group.getKey().type(),
+                        entries.stream().map(PendingNotification::getMessage).toList());
+            }
+        }
+        
+        pendingNotificationRepository.deleteAllInBatch(batch);
+    }
+    
+    private String toDigestMessage(Notification.NotificationType type, List<String> messages) {
+        if (messages.size() == 1) {
+            return messages.get(0);
+        }
+        return messages.size() + " " + describe(type) + ": " + String.join("; ", messages);
+    }
+    
+    static String describe(Notification.NotificationType type) {
+        return switch (type) {
+            case ORDER_PLACED -> "new order notifications";
+            case ORDER_UPDATED -> "order updates";
+            case LOW_STOCK -> "low stock alerts";
+            case SYSTEM -> "system notifications";
+        };
+    }
+    
+    private record DigestKey(Long userId, Notification.NotificationType type) {
+    }
+}
@@ -1,5 +1,6 @@
 package com.inventory.service;
 
+import com.inventory.dto.CursorPageResponse;
 import com.inventory.dto.NotificationDto;
 import com.inventory.entity.Notification;
 import com.inventory.entity.Product;
@@ -7,56 +8,99 @@ import com.inventory.entity.User;
 import com.inventory.repository.NotificationRepository;
 import com.inventory.repository.ProductRepository;
 import com.inventory.repository.UserRepository;
+import com.inventory.util.CursorUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
 public class NotificationService {
     
+    private static final Logger log = LoggerFactory.getLogger(NotificationService.class);
+    
+    private static final int MAX_FEED_PAGE_SIZE = 100;
+    
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
-    private final EmailService emailService;
+    private final NotificationDigestService digestService;
+    private final CurrentUserService currentUserService;
+    
+    @Value("${app.notifications.retention-days:30}")
+    private int retentionDays;
+    
+    @Value("${app.notifications.purge-batch-size:500}")
+    private int purgeBatchSize;
     
     public NotificationService(NotificationRepository notificationRepository, UserRepository userRepository,
-                              ProductRepository productRepository, EmailService emailService) {
+                              ProductRepository productRepository, NotificationDigestService digestService,
+                              CurrentUserService currentUserService) {
         this.notificationRepository = notificationRepository;
         this.userRepository = userRepository;
         this.productRepository = productRepository;
-        this.emailService = emailService;
+        this.digestService = digestService;
+        this.currentUserService = currentUserService;
     }
     
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-    }
-    
-    public List<NotificationDto> getUserNotifications() {
-        User user = getCurrentUser();
-        List<Notification> notifications = notificationRepository.findByUserOrderByCreatedAtDesc(user);
-        return notifications.stream().map(this::toDto).collect(Collectors.toList());
+    /**
+     * Keyset-paginated feed ordered by (createdAt, id) descending. The cursor is the opaque
+     * value returned as nextCursor by the previous page; omit it to start from the newest.
+     */
+    public CursorPageResponse<NotificationDto> getUserNotifications(String cursor, int size,
+                                                                    Notification.NotificationType type, Boolean isRead) {
+        User user = currentUserService.getCurrentUserReference();
+        int pageSize = CursorUtil.clampPageSize(size, MAX_FEED_PAGE_SIZE);
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        
+        List<Notification> notifications;
+        if (cursor == null || cursor.isBlank()) {
+            notifications = notificationRepository.findFeedFirstPage(user, type, isRead, limit);
+        } else {
+            CursorUtil.Cursor after = CursorUtil.decode(cursor);
+            notifications = notificationRepository.findFeedAfter(user, type, isRead,
+                    after.getCreatedAt(), after.getId(), limit);
+        }
+        
+        boolean hasMore = notifications.size() > pageSize;
+        if (hasMore) {
+            notifications = notifications.subList(0, pageSize);
+        }
+        
+        String nextCursor = null;
+        if (hasMore) {
+            Notification last = notifications.get(notifications.size() - 1);
+            nextCursor = CursorUtil.encode(last.getCreatedAt(), last.getId());
+        }
+        
+        return new CursorPageResponse<>(
+                notifications.stream().map(this::toDto).collect(Collectors.toList()),
+                nextCursor,
+                hasMore,
+                pageSize
+        );
     }
     
     public long getUnreadCount() {
-        User user = getCurrentUser();
+        User user = currentUserService.getCurrentUserReference();
         return notificationRepository.countByUserAndIsReadFalse(user);
     }
     
     @Transactional
     public void markAsRead(Long notificationId) {
-        User user = getCurrentUser();
+        Long userId = currentUserService.getCurrentUserId();
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notification not found"));
         
-        if (!notification.getUser().getId().equals(user.getId())) {
+        if (!notification.getUser().getId().equals(userId)) {
             throw new RuntimeException("Unauthorized");
         }
         
@@ -66,11 +110,31 @@ public class NotificationService {
     
     @Transactional
     public void markAllAsRead() {
-        User user = getCurrentUser();
-        List<Notification> unreadNotifications = notificationRepository.findByUserAndIsReadFalseOrderByCreatedAtDesc(user);
-        for (Notification notification : unreadNotifications) {
-            notification.setIsRead(true);
-            notificationRepository.save(notification);
+        User user = currentUserService.getCurrentUserReference();
+        notificationRepository.markAllAsReadByUser(user);
+    }
+    
+    /**
+     * Deletes read notifications older than the retention window. Rows are removed in
+     * small id batches, each in its own transaction, so the purge never holds long locks.
+     */
+    @Scheduled(cron = "${app.notifications.purge-cron:0 30 3 * * *}") // Daily at 03:30 by default
+    public void purgeOldReadNotifications() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        PageRequest batch = PageRequest.of(0, purgeBatchSize);
+        int purged = 0;
+        
+        List<Long> ids = notificationRepository.findReadIdsCreatedBefore(cutoff, batch);
+        while (!ids.isEmpty()) {
+            purged += notificationRepository.deleteByIdIn(ids);
+            if (ids.size() < purgeBatchSize) {
+                break;
+            }
+            ids = notificationRepository.findReadIdsCreatedBefore(cutoff, batch);
+        }
+        
+        if (purged > 0) {
+            log.info("Purged {} read notifications older than {} days", purged, retentionDays);
         }
     }
     
@@ -80,60 +144,34 @@ public class NotificationService {
         List<Product> lowStockProducts = productRepository.findByStockLessThan(10);
         
         if (!lowStockProducts.isEmpty()) {
-            List<User> adminUsers = userRepository.findAll().stream()
-                    .filter(u -> u.getRole() == User.Role.ADMIN)
-                    .collect(Collectors.toList());
-            
-            for (User admin : adminUsers) {
-                for (Product product : lowStockProducts) {
-                    // Check if notification already exists
-                    boolean notificationExists = notificationRepository.findByUserOrderByCreatedAtDesc(admin)
-                            .stream()
-                            .anyMatch(n -> n.getMessage().contains("Low stock") && 
-                                         n.getMessage().contains(product.getName()) &&
-                                         !n.getIsRead());
-                    
-                    if (!notificationExists) {
-                        Notification notification = new Notification();
-                        notification.setUser(admin);
-                        notification.setMessage("Low stock alert: " + product.getName() + " has only " + product.getStock() + " units left");
-                        notification.setType(Notification.NotificationType.LOW_STOCK);
-                        notification.setIsRead(false);
-                        notificationRepository.save(notification);
-                        
-                        // Send email alert to admin only
-                        emailService.sendLowStockAlertEmail(admin.getEmail(), product.getName(), product.getStock());
-                    }
-                }
-            }
+            notifyAdminsOfLowStock(lowStockProducts);
         }
     }
     
     @Transactional
     public void checkAndNotifyLowStock(Product product) {
         if (product.getStock() < 10) {
-            List<User> adminUsers = userRepository.findAll().stream()
-                    .filter(u -> u.getRole() == User.Role.ADMIN)
-                    .collect(Collectors.toList());
-            
-            for (User admin : adminUsers) {
-                // Check if notification already exists
-                boolean notificationExists = notificationRepository.findByUserOrderByCreatedAtDesc(admin)
-                        .stream()
-                        .anyMatch(n -> n.getMessage().contains("Low stock") && 
-                                     n.getMessage().contains(product.getName()) &&
-                                     !n.getIsRead());
+            notifyAdminsOfLowStock(List.of(product));
+        }
+    }
+    
+    private void notifyAdminsOfLowStock(List<Product> products) {
+        List<User> adminUsers = userRepository.findByRole(User.Role.ADMIN);
+        
+        for (User admin : adminUsers) {
+            for (Product product : products) {
+                // Skip if an unread alert for this product already exists
+                boolean notificationExists = notificationRepository.existsByUserAndTypeAndIsReadFalseAndMessageContaining(
+                        admin, Notification.NotificationType.LOW_STOCK, product.getName());
                 
                 if (!notificationExists) {
-                    Notification notification = new Notification();
-                    notification.setUser(admin);
-                    notification.setMessage("Low stock alert: " + product.getName() + " has only " + product.getStock() + " units left");
-                    notification.setType(Notification.NotificationType.LOW_STOCK);
-                    notification.setIsRead(false);
-                    notificationRepository.save(notification);
-                    
-                    // Send email alert to admin only
-                    emailService.sendLowStockAlertEmail(admin.getEmail(), product.getName(), product.getStock());
+                    // Alerts are coalesced into one digest row and email per admin
+                    digestService.enqueue(
+                            admin,
+                            Notification.NotificationType.LOW_STOCK,
+                            "Low stock alert: " + product.getName() + " has only " + product.getStock() + " units left",
+                            "LOW_STOCK:" + product.getId()
+                    );
                 }
             }
         }
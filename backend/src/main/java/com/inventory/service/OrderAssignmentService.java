@@ -0,0 +1,162 @@
+package com.inventory.service;
+
+import com.inventory.entity.Order;
+import com.inventory.entity.User;
+import com.inventory.repository.OrderRepository;
+import com.inventory.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes new orders to the staff member with the least open work (PENDING + PROCESSING).
+ * Open-order counts per enabled staff member are kept in memory and adjusted as orders are
+ * assigned or change status, so picking a staff member never touches the database. Each
+ * adjustment is applied once its transaction commits; a periodic reconciliation recounts
+ * from the orders table to correct any drift and pick up added or disabled staff.
+ */
+@Service
+public class OrderAssignmentService {
+    
+    private static final Logger log = LoggerFactory.getLogger(OrderAssignmentService.class);
+    private static final Set<Order.OrderStatus> OPEN = EnumSet.of(Order.OrderStatus.PENDING, Order.OrderStatus.PROCESSING);
+    
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+    
+    // Staff id -> open orders; replaced wholesale by reconcile()
+    private volatile Map<Long, AtomicInteger> workloads = Map.of();
+    
+    @Value("${app.orders.auto-assign:true}")
+    private boolean autoAssign;
+    
+    public OrderAssignmentService(OrderRepository orderRepository, UserRepository userRepository) {
+        this.orderRepository = orderRepository;
+        this.userRepository = userRepository;
+    }
+    
+    /**
+     * Assigns a new order to the least loaded staff member and counts it right away, so
+     * concurrent checkouts spread out. The count is given back if the transaction rolls back.
+     * Leaves the order unassigned when auto-assignment is off or no staff is known yet.
+     *
+     * @return the assigned staff member, or null
+     */
+    public User assignNewOrder(Order order) {
+        if (!autoAssign) {
+            return null;
+        }
+        Long staffId = reserveLeastLoaded();
+        if (staffId == null) {
+            return null;
+        }
+        
+        User staff = userRepository.getReferenceById(staffId);
+        order.setStaff(staff);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        adjust(staffId, -1);
+                    }
+                }
+            });
+        }
+        return staff;
+    }
+    
+    /**
+     * Records a status change of an order assigned to {@code staffId} (may be null).
+     */
+    public void statusChanged(Long staffId, Order.OrderStatus from, Order.OrderStatus to) {
+        if (staffId == null || OPEN.contains(from) == OPEN.contains(to)) {
+            return;
+        }
+        afterCommit(() -> adjust(staffId, OPEN.contains(to) ? 1 : -1));
+    }
+    
+    /**
+     * Records a manual (re)assignment of an order with the given status.
+     */
+    public void staffChanged(Long previousStaffId, Long newStaffId, Order.OrderStatus status) {
+        if (!OPEN.contains(status) || (previousStaffId != null && previousStaffId.equals(newStaffId))) {
+            return;
+        }
+        afterCommit(() -> {
+            if (previousStaffId != null) {
+                adjust(previousStaffId, -1);
+            }
+            adjust(newStaffId, 1);
+        });
+    }
+    
+    @Scheduled(fixedDelayString = "${app.orders.assignment-reconcile-ms:60000}")
+    public void reconcile() {
+        Map<Long, AtomicInteger> counts = new HashMap<>();
+        for (User staff : userRepository.findByRole(User.Role.STAFF)) {
+            if (Boolean.TRUE.equals(staff.getEnabled())) {
+                counts.put(staff.getId(), new AtomicInteger());
+            }
+        }
+        for (OrderRepository.StaffWorkload workload : orderRepository.countByStaffAndStatusIn(OPEN)) {
+            AtomicInteger count = counts.get(workload.getStaffId());
+            if (count != null) {
+                count.set(workload.getOpenOrders().intValue());
+            }
+        }
+        
+        synchronized (this) {
+            workloads = counts;
+        }
+        log.debug("Reconciled workloads for {} staff members", counts.size());
+    }
+    
+    private synchronized Long reserveLeastLoaded() {
+        Long best = null;
+        int bestCount = Integer.MAX_VALUE;
+        for (Map.Entry<Long, AtomicInteger> entry : workloads.entrySet()) {
+            int count = entry.getValue().get();
+            // Ties go to the lowest id so the choice is stable
+            if (count < bestCount || (count == bestCount && entry.getKey() < best)) {
+                best = entry.getKey();
+                bestCount = count;
+            }
+        }
+        if (best != null) {
+            workloads.get(best).incrementAndGet();
+        }
+        return best;
+    }
+    
+    private void adjust(Long staffId, int delta) {
+        // Unknown ids are admins or disabled staff, who never receive automatic assignments
+        AtomicInteger count = workloads.get(staffId);
+        if (count != null) {
+            count.updateAndGet(value -> Math.max(0, value + delta));
+        }
+    }
+    
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.inventory.service;
+
+import com.inventory.dto.OrderDto;
+import com.inventory.dto.OrderItemDto;
+import com.inventory.entity.Order;
+import com.inventory.repository.OrderItemRepository;
+import com.inventory.repository.OrderRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Builds OrderDtos for any number of orders in two statements: the orders with their customer
+ * and staff member, then a projection of all their items with product names. Shared by every
+ * endpoint that returns orders.
+ */
+@Service
+public class OrderQueryService {
+    
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    
+    public OrderQueryService(OrderRepository orderRepository, OrderItemRepository orderItemRepository) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+    }
+    
+    public OrderDto getOrderDto(Long orderId) {
+        List<OrderDto> dtos = getOrderDtos(List.of(orderId));
+        if (dtos.isEmpty()) {
+            throw new RuntimeException("Order not found");
+        }
+        return dtos.get(0);
+    }
+    
+    public Page<OrderDto> getOrderDtos(Page<Long> orderIds) {
+        Map<Long, OrderDto> dtos = getOrderDtos(orderIds.getContent()).stream()
+                .collect(Collectors.toMap(OrderDto::getId, Function.identity()));
+        return orderIds.map(dtos::get);
+    }
+    
+    /**
+     * Returns the DTOs in the order of {@code orderIds}; ids without an order are skipped.
+     */
+    public List<OrderDto> getOrderDtos(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        Map<Long, Order> orders = orderRepository.findWithUserAndStaffByIdIn(orderIds).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        
+        Map<Long, List<OrderItemDto>> itemsByOrder = new HashMap<>();
+        for (OrderItemRepository.OrderItemRow row : orderItemRepository.findRowsByOrderIdIn(orderIds)) {
+            itemsByOrder.computeIfAbsent(row.getOrderId(), id -> new ArrayList<>())
+                    .add(new OrderItemDto(row.getId(), row.getProductId(), row.getProductName(),
+                            row.getQuantity(), row.getPrice()));
+        }
+        
+        List<OrderDto> dtos = new ArrayList<>(orderIds.size());
+        for (Long orderId : orderIds) {
+            Order order = orders.get(orderId);
+            if (order != null) {
+                dtos.add(toOrderDto(order, itemsByOrder.getOrDefault(orderId, new ArrayList<>())));
+            }
+        }
+        return dtos;
+    }
+    
+    private OrderDto toOrderDto(Order order, List<OrderItemDto> items) {
+        return new OrderDto(
+                order.getId(),
+                order.getUser().getId(),
+                order.getUser().getName(),
+                order.getStaff() != null ? order.getStaff().getId() : null,
+                order.getStaff() != null ? order.getStaff().getName() : null,
+                order.getStatus(),
+                order.getTotalAmount(),
+                order.getShippingAddress(),
+                items,
+                order.getCreatedAt(),
+                order.getUpdatedAt()
+        );
+    }
+}
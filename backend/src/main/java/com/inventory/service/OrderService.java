@@ -3,21 +3,31 @@ package com.inventory.service;
 import com.inventory.dto.*;
 import com.inventory.entity.*;
 import com.inventory.repository.*;
+import com.inventory.util.CursorUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
     
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+    
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
     private final CartRepository cartRepository;
@@ -26,11 +36,27 @@ public class OrderService {
     private final NotificationRepository notificationRepository;
     private final EmailService emailService;
     private final NotificationService notificationService;
+    private final NotificationDigestService notificationDigestService;
+    private final CurrentUserService currentUserService;
+    private final OrderQueryService orderQueryService;
+    private final OrderAssignmentService orderAssignmentService;
+    
+    @Value("${app.orders.legacy-list-limit:200}")
+    private int legacyListLimit;
+    
+    @Value("${app.orders.bulk-status-max:100}")
+    private int bulkStatusMax;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
     
     public OrderService(OrderRepository orderRepository, OrderItemRepository orderItemRepository,
                        CartRepository cartRepository, ProductRepository productRepository,
                        UserRepository userRepository, NotificationRepository notificationRepository,
-                       EmailService emailService, NotificationService notificationService) {
+                       EmailService emailService, NotificationService notificationService,
+                       NotificationDigestService notificationDigestService,
+                       CurrentUserService currentUserService, OrderQueryService orderQueryService,
+                       OrderAssignmentService orderAssignmentService) {
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
         this.cartRepository = cartRepository;
@@ -39,18 +65,15 @@ public class OrderService {
         this.notificationRepository = notificationRepository;
         this.emailService = emailService;
         this.notificationService = notificationService;
-    }
-    
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        this.notificationDigestService = notificationDigestService;
+        this.currentUserService = currentUserService;
+        this.orderQueryService = orderQueryService;
+        this.orderAssignmentService = orderAssignmentService;
     }
     
     @Transactional
     public OrderDto checkout(CheckoutRequest request) {
-        User user = getCurrentUser();
+        User user = currentUserService.getCurrentUser();
         List<Cart> cartItems = cartRepository.findByUser(user);
         
         if (cartItems.isEmpty()) {
@@ -63,6 +86,7 @@ public class OrderService {
         order.setStatus(Order.OrderStatus.PENDING);
         order.setShippingAddress(request.getShippingAddress());
         order.setTotalAmount(BigDecimal.ZERO);
+        User assignee = orderAssignmentService.assignNewOrder(order);
         
         order = orderRepository.save(order);
         
@@ -105,57 +129,107 @@ public class OrderService {
         // Send email confirmation to customer
         emailService.sendOrderConfirmationEmail(user.getEmail(), order.getId().toString(), totalAmount.toString());
         
-        // Create notification for staff
-        List<User> staffUsers = userRepository.findAll().stream()
-                .filter(u -> u.getRole() == User.Role.STAFF || u.getRole() == User.Role.ADMIN)
-                .collect(Collectors.toList());
+        // Notify staff; new orders are coalesced into one digest row and email per staff member
+        List<User> staffUsers = userRepository.findByRoleIn(List.of(User.Role.STAFF, User.Role.ADMIN));
         
         for (User staff : staffUsers) {
-            Notification notification = new Notification();
-            notification.setUser(staff);
-            notification.setMessage("New order #" + order.getId() + " placed by " + user.getName());
-            notification.setType(Notification.NotificationType.ORDER_PLACED);
-            notification.setIsRead(false);
-            notificationRepository.save(notification);
-            
-            // Send email to staff
-            emailService.sendOrderNotificationEmail(staff.getEmail(), order.getId().toString(), user.getName());
+            notificationDigestService.enqueue(
+                    staff,
+                    Notification.NotificationType.ORDER_PLACED,
+                    "New order #" + order.getId() + " placed by " + user.getName(),
+                    null
+            );
+        }
+        if (assignee != null) {
+            notificationDigestService.enqueue(
+                    assignee,
+                    Notification.NotificationType.ORDER_PLACED,
+                    "Order #" + order.getId() + " has been assigned to you",
+                    null
+            );
         }
         
-        return toOrderDto(order);
+        return orderQueryService.getOrderDto(order.getId());
     }
     
+    /**
+     * Legacy full list, newest first, capped at app.orders.legacy-list-limit; use
+     * {@link #getCustomerOrderHistory} to page through everything.
+     */
     public List<OrderDto> getCustomerOrders() {
-        User user = getCurrentUser();
-        List<Order> orders = orderRepository.findByUser(user);
-        return orders.stream().map(this::toOrderDto).collect(Collectors.toList());
+        User user = currentUserService.getCurrentUserReference();
+        return orderQueryService.getOrderDtos(
+                orderRepository.findCustomerHistoryFirstPage(user, null, PageRequest.of(0, legacyListLimit)));
+    }
+    
+    /**
+     * Keyset-paginated order history ordered by (createdAt, id) descending, optionally
+     * filtered by status. Pass the previous page's nextCursor to continue.
+     */
+    public CursorPageResponse<OrderDto> getCustomerOrderHistory(String cursor, int size, Order.OrderStatus status) {
+        User user = currentUserService.getCurrentUserReference();
+        int pageSize = CursorUtil.clampPageSize(size, MAX_HISTORY_PAGE_SIZE);
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        
+        List<Long> ids;
+        if (cursor == null || cursor.isBlank()) {
+            ids = orderRepository.findCustomerHistoryFirstPage(user, status, limit);
+        } else {
+            CursorUtil.Cursor after = CursorUtil.decode(cursor);
+            ids = orderRepository.findCustomerHistoryAfter(user, status, after.getCreatedAt(), after.getId(), limit);
+        }
+        return toCursorPage(ids, pageSize);
     }
     
     public OrderDto getOrderById(Long id) {
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
-        return toOrderDto(order);
+        return orderQueryService.getOrderDto(id);
     }
     
     // Staff methods
     public List<OrderDto> getStaffOrders() {
-        User staff = getCurrentUser();
-        List<Order> orders = orderRepository.findByStaff(staff);
-        return orders.stream().map(this::toOrderDto).collect(Collectors.toList());
+        User staff = currentUserService.getCurrentUserReference();
+        return orderQueryService.getOrderDtos(
+                orderRepository.findStaffHistoryFirstPage(staff, PageRequest.of(0, legacyListLimit)));
+    }
+    
+    public CursorPageResponse<OrderDto> getStaffOrderHistory(String cursor, int size, Order.OrderStatus status) {
+        User staff = currentUserService.getCurrentUserReference();
+        int pageSize = CursorUtil.clampPageSize(size, MAX_HISTORY_PAGE_SIZE);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        
+        List<Long> ids;
+        if (cursor == null || cursor.isBlank()) {
+            ids = status == null
+                    ? orderRepository.findStaffHistoryFirstPage(staff, limit)
+                    : orderRepository.findStaffHistoryByStatusFirstPage(staff, status, limit);
+        } else {
+            CursorUtil.Cursor after = CursorUtil.decode(cursor);
+            ids = status == null
+                    ? orderRepository.findStaffHistoryAfter(staff, after.getCreatedAt(), after.getId(), limit)
+                    : orderRepository.findStaffHistoryByStatusAfter(staff, status, after.getCreatedAt(), after.getId(), limit);
+        }
+        return toCursorPage(ids, pageSize);
     }
     
     @Transactional
     public OrderDto updateOrderStatus(Long orderId, UpdateOrderStatusRequest request) {
-        User staff = getCurrentUser();
+        Long staffId = currentUserService.getCurrentUserId();
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         
         // Check if order is assigned to this staff or if user is admin
-        if (order.getStaff() != null && !order.getStaff().getId().equals(staff.getId()) 
-            && staff.getRole() != User.Role.ADMIN) {
+        if (order.getStaff() != null && !order.getStaff().getId().equals(staffId) 
+            && currentUserService.getCurrentRole() != User.Role.ADMIN) {
             throw new RuntimeException("Unauthorized: Order not assigned to you");
         }
         
+        if (!order.getStatus().canTransitionTo(request.getStatus())) {
+            throw new RuntimeException("Cannot change order status from " + order.getStatus() + " to " + request.getStatus());
+        }
+        
+        orderAssignmentService.statusChanged(order.getStaff() != null ? order.getStaff().getId() : null,
+                order.getStatus(), request.getStatus());
         order.setStatus(request.getStatus());
         order = orderRepository.save(order);
         
@@ -174,14 +248,81 @@ public class OrderService {
                 request.getStatus().name()
         );
         
-        return toOrderDto(order);
+        return orderQueryService.getOrderDto(order.getId());
+    }
+    
+    /**
+     * Moves up to app.orders.bulk-status-max orders to one status in a single transaction.
+     * Every order must be assigned to the caller (admins excepted) and allow the transition,
+     * or none is changed. Cancelled orders are restocked as in {@link #cancelOrder}. The
+     * versioned UPDATEs go out as one JDBC batch, and customers are notified through the digest
+     * instead of one notification and email per order.
+     */
+    @Transactional
+    public List<OrderDto> bulkUpdateOrderStatus(BulkUpdateOrderStatusRequest request) {
+        List<Long> orderIds = request.getOrderIds().stream().distinct().toList();
+        if (orderIds.size() > bulkStatusMax) {
+            throw new RuntimeException("At most " + bulkStatusMax + " orders can be updated at once");
+        }
+        Order.OrderStatus status = request.getStatus();
+        Long staffId = currentUserService.getCurrentUserId();
+        boolean admin = currentUserService.getCurrentRole() == User.Role.ADMIN;
+        
+        List<Order> orders = orderRepository.findWithUserAndStaffByIdIn(orderIds);
+        if (orders.size() != orderIds.size()) {
+            Set<Long> found = orders.stream().map(Order::getId).collect(Collectors.toSet());
+            throw new RuntimeException("Orders not found: " + orderIds.stream().filter(id -> !found.contains(id)).toList());
+        }
+        
+        List<Long> rejected = new ArrayList<>();
+        for (Order order : orders) {
+            if (!admin && (order.getStaff() == null || !order.getStaff().getId().equals(staffId))) {
+                throw new RuntimeException("Unauthorized: Order #" + order.getId() + " not assigned to you");
+            }
+            if (!order.getStatus().canTransitionTo(status)) {
+                rejected.add(order.getId());
+            }
+        }
+        if (!rejected.isEmpty()) {
+            throw new RuntimeException("Cannot change orders " + rejected + " to " + status);
+        }
+        
+        // Read before any order is dirty, so the query does not flush them ahead of the batch
+        if (status == Order.OrderStatus.CANCELLED) {
+            restock(orderIds);
+        }
+        
+        for (Order order : orders) {
+            orderAssignmentService.statusChanged(order.getStaff() != null ? order.getStaff().getId() : null,
+                    order.getStatus(), status);
+            order.setStatus(status);
+        }
+        Session session = entityManager.unwrap(Session.class);
+        Integer previousBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(orders.size());
+        try {
+            orderRepository.flush();
+        } finally {
+            session.setJdbcBatchSize(previousBatchSize);
+        }
+        
+        for (Order order : orders) {
+            notificationDigestService.enqueue(
+                    order.getUser(),
+                    Notification.NotificationType.ORDER_UPDATED,
+                    "Your order #" + order.getId() + " status updated to " + status,
+                    "order-status:" + order.getId()
+            );
+        }
+        
+        return orderQueryService.getOrderDtos(orderIds);
     }
     
     // Admin methods
     public Page<OrderDto> getAllOrders(Long userId, Order.OrderStatus status, 
                                       LocalDateTime startDate, LocalDateTime endDate, Pageable pageable) {
-        return orderRepository.findOrdersWithFilters(userId, status, startDate, endDate, pageable)
-                .map(this::toOrderDto);
+        return orderQueryService.getOrderDtos(
+                orderRepository.findOrderIdsWithFilters(userId, status, startDate, endDate, pageable));
     }
     
     @Transactional
@@ -196,6 +337,9 @@ public class OrderService {
             throw new RuntimeException("User is not a staff member");
         }
         
+        // Admin override; the workload counters follow the order to its new staff member
+        orderAssignmentService.staffChanged(order.getStaff() != null ? order.getStaff().getId() : null,
+                staff.getId(), order.getStatus());
         order.setStaff(staff);
         order = orderRepository.save(order);
         
@@ -207,23 +351,35 @@ public class OrderService {
         notification.setIsRead(false);
         notificationRepository.save(notification);
         
-        return toOrderDto(order);
+        return orderQueryService.getOrderDto(order.getId());
+    }
+    
+    private void restock(List<Long> orderIds) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (OrderItemRepository.OrderItemRow item : orderItemRepository.findRowsByOrderIdIn(orderIds)) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        for (Product product : productRepository.findAllById(quantities.keySet())) {
+            product.setStock(product.getStock() + quantities.get(product.getId()));
+        }
     }
     
     @Transactional
     public OrderDto cancelOrder(Long orderId) {
-        User user = getCurrentUser();
+        Long userId = currentUserService.getCurrentUserId();
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         
-        if (!order.getUser().getId().equals(user.getId())) {
+        if (!order.getUser().getId().equals(userId)) {
             throw new RuntimeException("Unauthorized");
         }
         
-        if (order.getStatus() != Order.OrderStatus.PENDING && order.getStatus() != Order.OrderStatus.PROCESSING) {
+        if (!order.getStatus().canTransitionTo(Order.OrderStatus.CANCELLED)) {
             throw new RuntimeException("Only pending/processing orders can be cancelled");
         }
         
+        orderAssignmentService.statusChanged(order.getStaff() != null ? order.getStaff().getId() : null,
+                order.getStatus(), Order.OrderStatus.CANCELLED);
         order.setStatus(Order.OrderStatus.CANCELLED);
         order = orderRepository.save(order);
         
@@ -261,31 +417,23 @@ public class OrderService {
                 order.getStatus().name()
         );
         
-        return toOrderDto(order);
+        return orderQueryService.getOrderDto(order.getId());
     }
     
-    private OrderDto toOrderDto(Order order) {
-        return new OrderDto(
-                order.getId(),
-                order.getUser().getId(),
-                order.getUser().getName(),
-                order.getStaff() != null ? order.getStaff().getId() : null,
-                order.getStaff() != null ? order.getStaff().getName() : null,
-                order.getStatus(),
-                order.getTotalAmount(),
-                order.getShippingAddress(),
-                order.getOrderItems().stream()
-                        .map(item -> new OrderItemDto(
-                                item.getId(),
-                                item.getProduct().getId(),
-                                item.getProduct().getName(),
-                                item.getQuantity(),
-                                item.getPrice()
-                        ))
-                        .collect(Collectors.toList()),
-                order.getCreatedAt(),
-                order.getUpdatedAt()
-        );
+    private CursorPageResponse<OrderDto> toCursorPage(List<Long> ids, int pageSize) {
+        boolean hasMore = ids.size() > pageSize;
+        if (hasMore) {
+            ids = ids.subList(0, pageSize);
+        }
+        
+        List<OrderDto> orders = orderQueryService.getOrderDtos(ids);
+        
+        String nextCursor = null;
+        if (hasMore && !orders.isEmpty()) {
+            OrderDto last = orders.get(orders.size() - 1);
+            nextCursor = CursorUtil.encode(last.getCreatedAt(), last.getId());
+        }
+        
+        return new CursorPageResponse<>(orders, nextCursor, hasMore, pageSize);
     }
 }
-
@@ -0,0 +1,22 @@
+package com.inventory.service;
+
+import java.time.Duration;
+
+/**
+ * Storage for password-reset OTPs. Selected with {@code app.otp.store}: {@code memory}
+ * (default, single node) or {@code database} (shared across nodes).
+ */
+public interface OtpStore {
+    
+    /**
+     * Stores a new OTP for the email, replacing any previous one.
+     */
+    void put(String email, String otp, Duration ttl);
+    
+    /**
+     * Checks the OTP. A wrong guess counts as an attempt and the OTP is discarded once the
+     * attempt limit is reached. When {@code consume} is true a matching OTP is invalidated
+     * atomically, so it can be used only once.
+     */
+    boolean verify(String email, String otp, boolean consume);
+}
@@ -1,6 +1,7 @@
 package com.inventory.service;
 
 import com.inventory.dto.CreateProductRequest;
+import com.inventory.dto.ImageVariantsDto;
 import com.inventory.dto.ProductDto;
 import com.inventory.entity.Category;
 import com.inventory.entity.Product;
@@ -12,10 +13,15 @@ import com.inventory.repository.ReviewRepository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -28,19 +34,28 @@ public class ProductService {
     private final ReviewRepository reviewRepository;
     private final FileStorageService fileStorageService;
     private final NotificationService notificationService;
+    private final ImageVariantService imageVariantService;
+    private final StorageCleanupService storageCleanupService;
+    private final TransactionTemplate transactionTemplate;
     
     public ProductService(ProductRepository productRepository,
                          CategoryRepository categoryRepository,
                          ProductImageRepository productImageRepository,
                          ReviewRepository reviewRepository,
                          FileStorageService fileStorageService,
-                         NotificationService notificationService) {
+                         NotificationService notificationService,
+                         ImageVariantService imageVariantService,
+                         StorageCleanupService storageCleanupService,
+                         PlatformTransactionManager transactionManager) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
         this.productImageRepository = productImageRepository;
         this.reviewRepository = reviewRepository;
         this.fileStorageService = fileStorageService;
         this.notificationService = notificationService;
+        this.imageVariantService = imageVariantService;
+        this.storageCleanupService = storageCleanupService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
     
     public Page<ProductDto> getAllProducts(Pageable pageable, Boolean active) {
@@ -69,43 +84,41 @@ public class ProductService {
         return toDto(product);
     }
     
-    @Transactional
+    /**
+     * Images are validated and written before the transaction starts, so slow uploads never
+     * hold a database connection. If the transaction then fails, the written blobs are
+     * unreferenced and ImageBlobSweeper collects them.
+     */
     public ProductDto createProduct(CreateProductRequest request, MultipartFile[] images) {
-        Category category = categoryRepository.findById(request.getCategoryId())
-                .orElseThrow(() -> new RuntimeException("Category not found"));
-        
-        Product product = new Product();
-        product.setName(request.getName());
-        product.setDescription(request.getDescription());
-        product.setPrice(request.getPrice());
-        product.setStock(request.getStock());
-        if (request.getActive() != null) {
-            product.setActive(request.getActive());
+        fileStorageService.validateImages(images);
+        if (!categoryRepository.existsById(request.getCategoryId())) {
+            throw new RuntimeException("Category not found");
         }
-        product.setCategory(category);
         
-        product = productRepository.save(product);
+        List<FileStorageService.StoredImage> storedImages = storeImages(images);
         
-        // Check for low stock and notify admin/staff
-        notificationService.checkAndNotifyLowStock(product);
-        
-        // Save images
-        if (images != null && images.length > 0) {
-            try {
-                List<String> imageUrls = fileStorageService.saveProductImages(product.getId(), images);
-                for (int i = 0; i < imageUrls.size(); i++) {
-                    ProductImage productImage = new ProductImage();
-                    productImage.setProduct(product);
-                    productImage.setImageUrl(imageUrls.get(i));
-                    productImage.setIsPrimary(i == 0);
-                    productImageRepository.save(productImage);
-                }
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to save product images", e);
+        return transactionTemplate.execute(status -> {
+            Category category = categoryRepository.findById(request.getCategoryId())
+                    .orElseThrow(() -> new RuntimeException("Category not found"));
+            
+            Product newProduct = new Product();
+            newProduct.setName(request.getName());
+            newProduct.setDescription(request.getDescription());
+            newProduct.setPrice(request.getPrice());
+            newProduct.setStock(request.getStock());
+            if (request.getActive() != null) {
+                newProduct.setActive(request.getActive());
             }
-        }
-        
-        return toDto(product);
+            newProduct.setCategory(category);
+            
+            newProduct = productRepository.save(newProduct);
+            
+            // Check for low stock and notify admin/staff
+            notificationService.checkAndNotifyLowStock(newProduct);
+            
+            insertImages(newProduct.getId(), storedImages, true);
+            return toDto(newProduct);
+        });
     }
     
     @Transactional
@@ -133,25 +146,43 @@ public class ProductService {
         return toDto(product);
     }
     
-    @Transactional
     public void addProductImages(Long productId, MultipartFile[] images) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
+        fileStorageService.validateImages(images);
+        if (!productRepository.existsById(productId)) {
+            throw new RuntimeException("Product not found");
+        }
         
-        if (images != null && images.length > 0) {
-            try {
-                List<String> imageUrls = fileStorageService.saveProductImages(productId, images);
-                for (String imageUrl : imageUrls) {
-                    ProductImage productImage = new ProductImage();
-                    productImage.setProduct(product);
-                    productImage.setImageUrl(imageUrl);
-                    productImage.setIsPrimary(false);
-                    productImageRepository.save(productImage);
-                }
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to save product images", e);
-            }
+        List<FileStorageService.StoredImage> storedImages = storeImages(images);
+        transactionTemplate.executeWithoutResult(status -> insertImages(productId, storedImages, false));
+    }
+    
+    private List<FileStorageService.StoredImage> storeImages(MultipartFile[] images) {
+        try {
+            return fileStorageService.saveProductImages(images);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to save product images", e);
+        }
+    }
+    
+    /**
+     * Records the stored images in one batch and queues their variants for after commit.
+     */
+    private void insertImages(Long productId, List<FileStorageService.StoredImage> storedImages, boolean firstIsPrimary) {
+        if (storedImages.isEmpty()) {
+            return;
+        }
+        
+        List<ProductImage> productImages = new ArrayList<>();
+        for (int i = 0; i < storedImages.size(); i++) {
+            ProductImage productImage = new ProductImage();
+            productImage.setImageUrl(storedImages.get(i).url());
+            productImage.setContentHash(storedImages.get(i).contentHash());
+            productImage.setIsPrimary(firstIsPrimary && i == 0);
+            productImages.add(productImage);
         }
+        
+        List<Long> imageIds = productImageRepository.batchInsert(productId, productImages);
+        imageVariantService.scheduleGeneration(imageIds);
     }
     
     @Transactional
@@ -163,10 +194,12 @@ public class ProductService {
             throw new RuntimeException("Image does not belong to this product");
         }
         
-        try {
-            fileStorageService.deleteProductImage(productImage.getImageUrl());
-        } catch (Exception e) {
-            // Log error but continue with deletion
+        // Content-addressed blobs may be shared; dropping the row releases this reference
+        // and ImageBlobSweeper collects the blob once nothing points at it
+        if (productImage.getContentHash() == null) {
+            List<Path> paths = new ArrayList<>(imageVariantService.variantPaths(productImage.getImageUrl()));
+            paths.add(fileStorageService.resolveImagePath(productImage.getImageUrl()));
+            storageCleanupService.enqueueAll(paths);
         }
         
         productImageRepository.delete(productImage);
@@ -177,26 +210,23 @@ public class ProductService {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         
-        try {
-            fileStorageService.deleteProductDirectory(id);
-        } catch (Exception e) {
-            // Log error but continue with deletion
-        }
+        // Only pre-content-addressing uploads live in the product directory; blobs are
+        // released with the cascaded product_images rows and swept later
+        storageCleanupService.enqueue(fileStorageService.getProductDirectory(id));
         
         productRepository.delete(product);
     }
     
     private ProductDto toDto(Product product) {
-        List<String> imageUrls;
-        if (product.getImages() != null && !product.getImages().isEmpty()) {
-            imageUrls = product.getImages().stream()
-                    .map(ProductImage::getImageUrl)
-                    .collect(Collectors.toList());
-        } else {
-            imageUrls = productImageRepository.findByProductId(product.getId()).stream()
-                    .map(ProductImage::getImageUrl)
-                    .collect(Collectors.toList());
-        }
+        List<ProductImage> productImages = product.getImages() != null && !product.getImages().isEmpty()
+                ? product.getImages()
+                : productImageRepository.findByProductId(product.getId());
+        List<String> imageUrls = productImages.stream()
+                .map(ProductImage::getImageUrl)
+                .collect(Collectors.toList());
+        List<ImageVariantsDto> imageVariants = productImages.stream()
+                .map(imageVariantService::toVariants)
+                .collect(Collectors.toList());
         
         Double averageRating = reviewRepository.getAverageRatingByProduct(product);
         Integer reviewCount = product.getReviews().size();
@@ -221,6 +251,7 @@ public class ProductService {
                 product.getCategory().getId(),
                 product.getCategory().getName(),
                 imageUrls,
+                imageVariants,
                 averageRating,
                 reviewCount,
                 product.getCreatedAt(),
@@ -2,12 +2,13 @@ package com.inventory.service;
 
 import com.inventory.dto.*;
 import com.inventory.entity.User;
+import com.inventory.exception.ServiceBusyException;
 import com.inventory.repository.UserRepository;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 @Service
@@ -15,30 +16,30 @@ public class ProfileService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-
-    public ProfileService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    private final CurrentUserService currentUserService;
+    private final StorageCleanupService storageCleanupService;
+    private final AvatarImageService avatarImageService;
+    private final TransactionTemplate transactionTemplate;
+
+    public ProfileService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                          CurrentUserService currentUserService, StorageCleanupService storageCleanupService,
+                          AvatarImageService avatarImageService, PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-    }
-
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        this.currentUserService = currentUserService;
+        this.storageCleanupService = storageCleanupService;
+        this.avatarImageService = avatarImageService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public ProfileResponse getProfile() {
-        User user = getCurrentUser();
-        return new ProfileResponse(
-                toDto(user),
-                toSettings(user)
-        );
+        User user = currentUserService.getCurrentUser();
+        return toResponse(user);
     }
 
     @Transactional
     public ProfileResponse updateProfile(UpdateProfileRequest request) {
-        User user = getCurrentUser();
+        User user = currentUserService.getCurrentUser();
 
         if (!user.getEmail().equals(request.getEmail()) && userRepository.existsByEmail(request.getEmail())) {
             throw new RuntimeException("Email already exists");
@@ -55,12 +56,12 @@ public class ProfileService {
         }
 
         user = userRepository.save(user);
-        return new ProfileResponse(toDto(user), toSettings(user));
+        return toResponse(user);
     }
 
     @Transactional
     public void changePassword(ChangePasswordRequest request) {
-        User user = getCurrentUser();
+        User user = currentUserService.getCurrentUser();
         if (!passwordEncoder.matches(request.getCurrentPassword(), user.getPassword())) {
             throw new RuntimeException("Current password is incorrect");
         }
@@ -70,7 +71,7 @@ public class ProfileService {
 
     @Transactional
     public UserSettingsDto updateSettings(UpdateSettingsRequest request) {
-        User user = getCurrentUser();
+        User user = currentUserService.getCurrentUser();
 
         if (request.getThemePreference() != null) {
             user.setThemePreference(request.getThemePreference());
@@ -86,6 +87,10 @@ public class ProfileService {
         return toSettings(user);
     }
 
+    private ProfileResponse toResponse(User user) {
+        return new ProfileResponse(toDto(user), toSettings(user), avatarImageService.variantUrls(user.getAvatarUrl()));
+    }
+
     private UserDto toDto(User user) {
         return new UserDto(
                 user.getId(),
@@ -112,24 +117,42 @@ public class ProfileService {
     }
     
     /**
-     * Upload avatar image - similar to product image upload
+     * Upload avatar image; it is cropped square and stored at the standard avatar sizes.
+     * The image is processed before the transaction starts, so slow decodes never hold a
+     * database connection. If the transaction then fails, the written version is simply
+     * left unreferenced.
      */
-    @Transactional
-    public ProfileResponse uploadAvatar(MultipartFile file, FileStorageService fileStorageService) {
-        User user = getCurrentUser();
+    public ProfileResponse uploadAvatar(MultipartFile file) {
+        Long userId = currentUserService.getCurrentUserId();
         
+        // Normalize the upload and get the URL of the largest size
+        String avatarUrl;
         try {
-            // Save avatar file and get URL
-            String avatarUrl = fileStorageService.saveAvatarImage(user.getId(), file);
+            avatarUrl = avatarImageService.saveAvatar(userId, file);
+        } catch (ServiceBusyException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to save avatar: " + e.getMessage(), e);
+        }
+        
+        return transactionTemplate.execute(status -> {
+            User user = currentUserService.getCurrentUser();
+            String previousUrl = user.getAvatarUrl() != null ? user.getAvatarUrl().split("\\?")[0] : null;
             
             // Update user's avatar URL
             user.setAvatarUrl(avatarUrl);
             user = userRepository.save(user);
             
-            return new ProfileResponse(toDto(user), toSettings(user));
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to save avatar: " + e.getMessage(), e);
-        }
+            // Uploading a version again must not lose it to a deletion queued when it was replaced
+            storageCleanupService.cancelAll(avatarImageService.storedPaths(avatarUrl));
+            
+            // The previous version is no longer referenced; delete it in the background
+            String ownPrefix = "/api/images/avatars/" + user.getId() + "/";
+            if (previousUrl != null && previousUrl.startsWith(ownPrefix) && !previousUrl.equals(avatarUrl)) {
+                storageCleanupService.enqueueAll(avatarImageService.storedPaths(previousUrl));
+            }
+            
+            return toResponse(user);
+        });
     }
 }
-
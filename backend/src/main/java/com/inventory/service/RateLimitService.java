@@ -0,0 +1,184 @@
+package com.inventory.service;
+
+import com.inventory.config.RateLimitProperties;
+import com.inventory.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process token-bucket rate limiter. Each bucket is a single atomic value updated with
+ * CAS (the GCRA formulation of a token bucket), so acquiring a token never blocks. The
+ * key-to-bucket map is a ConcurrentHashMap bounded by max-keys: once full, the least recently
+ * used buckets that have refilled completely are evicted, since forgetting those loses no
+ * state. A bucket that is still throttling is never evicted; if none can go, requests for new
+ * keys are rejected until some refill.
+ */
+@Service
+public class RateLimitService {
+    
+    public static final String BY_IP = "ip";
+    public static final String BY_EMAIL = "email";
+    
+    // A sweep frees this share of max-keys, and at most one runs per interval
+    private static final double SWEEP_TARGET = 0.9;
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>(1024);
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final long origin = System.nanoTime();
+    private volatile long lastSweep = -SWEEP_INTERVAL_NANOS;
+    
+    public RateLimitService(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+    
+    /**
+     * Takes one token for the key, returning 0 if allowed or the nanoseconds until a token
+     * is available if throttled. Routes without a configured limit are never throttled.
+     */
+    public long tryAcquire(String route, String dimension, String key) {
+        if (!properties.isEnabled() || key == null) {
+            return 0;
+        }
+        Map<String, RateLimitProperties.Limit> limits = BY_EMAIL.equals(dimension)
+                ? properties.getEmail() : properties.getIp();
+        RateLimitProperties.Limit limit = limits.get(route);
+        if (limit == null) {
+            return 0;
+        }
+        
+        String bucketKey = route + ":" + dimension + ":" + key.toLowerCase(Locale.ROOT);
+        long now = System.nanoTime() - origin;
+        long waitNanos;
+        Bucket bucket = buckets.get(bucketKey);
+        if (bucket == null && buckets.size() >= properties.getMaxKeys() && !makeRoom(now)) {
+            // Fail closed: every tracked key is still throttling, so an unknown key is not admitted
+            waitNanos = interval(limit);
+        } else {
+            if (bucket == null) {
+                bucket = buckets.computeIfAbsent(bucketKey, k -> new Bucket());
+            }
+            while ((waitNanos = bucket.tryConsume(now, limit)) == Bucket.RETIRED) {
+                // Evicted while we held it; the sweeper may not have unmapped it yet
+                buckets.remove(bucketKey, bucket);
+                bucket = buckets.computeIfAbsent(bucketKey, k -> new Bucket());
+            }
+        }
+        if (waitNanos > 0) {
+            meterRegistry.counter("auth.throttled", "route", route, "by", dimension).increment();
+        }
+        return waitNanos;
+    }
+    
+    /**
+     * Same as {@link #tryAcquire} but throws {@link RateLimitExceededException} when throttled.
+     */
+    public void acquireOrThrow(String route, String dimension, String key) {
+        long waitNanos = tryAcquire(route, dimension, key);
+        if (waitNanos > 0) {
+            throw new RateLimitExceededException(toRetryAfterSeconds(waitNanos));
+        }
+    }
+    
+    /**
+     * Evicts refilled buckets, least recently used first, until the map is down to
+     * SWEEP_TARGET of max-keys or none are left. One thread sweeps at a time and sweeps are
+     * spaced SWEEP_INTERVAL apart, so a flood of new keys cannot turn every request into a scan.
+     *
+     * @return whether there is room for a new key
+     */
+    private boolean makeRoom(long now) {
+        int maxKeys = properties.getMaxKeys();
+        if (now - lastSweep < SWEEP_INTERVAL_NANOS || !sweeping.compareAndSet(false, true)) {
+            return buckets.size() < maxKeys;
+        }
+        try {
+            lastSweep = now;
+            int excess = buckets.size() - (int) (maxKeys * SWEEP_TARGET);
+            List<Map.Entry<String, Bucket>> idle = new ArrayList<>();
+            for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+                if (entry.getValue().isFull(now)) {
+                    idle.add(entry);
+                }
+            }
+            idle.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+            for (Map.Entry<String, Bucket> entry : idle) {
+                if (excess <= 0) {
+                    break;
+                }
+                // Retiring fails if the bucket was used since the scan
+                if (entry.getValue().retire(now)) {
+                    buckets.remove(entry.getKey(), entry.getValue());
+                    excess--;
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+        return buckets.size() < maxKeys;
+    }
+    
+    private static long interval(RateLimitProperties.Limit limit) {
+        return limit.getPeriod().toNanos() / Math.max(1, limit.getCapacity());
+    }
+    
+    public static long toRetryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    }
+    
+    private static final class Bucket {
+        // Returned by tryConsume once the bucket was evicted; the caller looks the key up again
+        static final long RETIRED = -1;
+        private static final long RETIRED_TAT = Long.MIN_VALUE;
+        
+        // Theoretical arrival time: when the bucket would be full again
+        private final AtomicLong tat = new AtomicLong();
+        private volatile long lastAccess;
+        
+        long tryConsume(long now, RateLimitProperties.Limit limit) {
+            lastAccess = now;
+            long interval = interval(limit);
+            long burst = interval * (limit.getCapacity() - 1);
+            while (true) {
+                long current = tat.get();
+                if (current == RETIRED_TAT) {
+                    return RETIRED;
+                }
+                long base = Math.max(current, now);
+                if (base - now > burst) {
+                    return base - now - burst;
+                }
+                if (tat.compareAndSet(current, base + interval)) {
+                    return 0;
+                }
+            }
+        }
+        
+        boolean isFull(long now) {
+            long current = tat.get();
+            return current != RETIRED_TAT && current <= now;
+        }
+        
+        /**
+         * Marks a full bucket as evicted. A fresh bucket is also full, so a request that
+         * replaces it loses nothing.
+         */
+        boolean retire(long now) {
+            long current = tat.get();
+            return current != RETIRED_TAT && current <= now && tat.compareAndSet(current, RETIRED_TAT);
+        }
+    }
+}
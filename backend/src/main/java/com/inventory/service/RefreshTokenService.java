@@ -0,0 +1,138 @@
+package com.inventory.service;
+
+import com.inventory.entity.RefreshToken;
+import com.inventory.entity.User;
+import com.inventory.repository.RefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Issues and rotates opaque refresh tokens. Only a SHA-256 hash is stored. Every refresh
+ * revokes the presented token and issues a successor in the same family; presenting an
+ * already-rotated token after a short grace window means it was copied, so the whole family
+ * is revoked.
+ */
+@Service
+public class RefreshTokenService {
+    
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+    
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final SecureRandom secureRandom = new SecureRandom();
+    
+    @Value("${app.security.refresh-token-ttl-days:14}")
+    private long ttlDays;
+    
+    @Value("${app.security.refresh-token-reuse-grace-seconds:10}")
+    private long reuseGraceSeconds;
+    
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository) {
+        this.refreshTokenRepository = refreshTokenRepository;
+    }
+    
+    /**
+     * Starts a new token family for a fresh login and returns the raw token.
+     */
+    @Transactional
+    public String issue(User user) {
+        return store(user, UUID.randomUUID().toString());
+    }
+    
+    /**
+     * Exchanges a refresh token for its successor. The result's user is fully loaded.
+     * Failed refreshes throw BadCredentialsException without rolling back, so a detected
+     * reuse stays revoked.
+     */
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public Rotation rotate(String rawToken) {
+        RefreshToken current = refreshTokenRepository.findByTokenHashForUpdate(hash(rawToken))
+                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+        
+        // Two tabs refreshing at once, or a retried refresh, present the same token twice in
+        // quick succession; only reuse after the grace window is treated as theft
+        boolean concurrentRefresh = current.getRevoked() && current.getRotatedAt() != null
+                && current.getRotatedAt().isAfter(LocalDateTime.now().minusSeconds(reuseGraceSeconds));
+        if (current.getRevoked() && !concurrentRefresh) {
+            int revoked = refreshTokenRepository.revokeFamily(current.getFamilyId());
+            log.warn("Refresh token reuse detected for user {}; revoked {} tokens", current.getUser().getId(), revoked);
+            throw new BadCredentialsException("Refresh token has already been used");
+        }
+        if (current.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new BadCredentialsException("Refresh token has expired");
+        }
+        
+        User user = current.getUser();
+        if (!Boolean.TRUE.equals(user.getEnabled())) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId());
+            throw new BadCredentialsException("User is disabled");
+        }
+        
+        if (!concurrentRefresh) {
+            current.setRevoked(true);
+            current.setRotatedAt(LocalDateTime.now());
+            refreshTokenRepository.save(current);
+        }
+        return new Rotation(user, store(user, current.getFamilyId()));
+    }
+    
+    @Transactional
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId()));
+    }
+    
+    @Transactional
+    public void revokeAllForUser(Long userId) {
+        refreshTokenRepository.revokeAllByUserId(userId);
+    }
+    
+    @Scheduled(cron = "${app.security.refresh-token-purge-cron:0 15 4 * * *}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = refreshTokenRepository.deleteExpiredBefore(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Purged {} expired refresh tokens", deleted);
+        }
+    }
+    
+    private String store(User user, String familyId) {
+        byte[] bytes = new byte[32];
+        secureRandom.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        
+        RefreshToken token = new RefreshToken();
+        token.setUser(user);
+        token.setTokenHash(hash(rawToken));
+        token.setFamilyId(familyId);
+        token.setExpiresAt(LocalDateTime.now().plusDays(ttlDays));
+        token.setRevoked(false);
+        refreshTokenRepository.save(token);
+        return rawToken;
+    }
+    
+    private static String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    public record Rotation(User user, String refreshToken) {
+    }
+}
@@ -9,9 +9,6 @@ import com.inventory.entity.User;
 import com.inventory.repository.OrderItemRepository;
 import com.inventory.repository.ProductRepository;
 import com.inventory.repository.ReviewRepository;
-import com.inventory.repository.UserRepository;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,22 +20,16 @@ public class ReviewService {
     
     private final ReviewRepository reviewRepository;
     private final ProductRepository productRepository;
-    private final UserRepository userRepository;
     private final OrderItemRepository orderItemRepository;
+    private final CurrentUserService currentUserService;
     
     public ReviewService(ReviewRepository reviewRepository, ProductRepository productRepository, 
-                        UserRepository userRepository, OrderItemRepository orderItemRepository) {
+                        OrderItemRepository orderItemRepository,
+                        CurrentUserService currentUserService) {
         this.reviewRepository = reviewRepository;
         this.productRepository = productRepository;
-        this.userRepository = userRepository;
         this.orderItemRepository = orderItemRepository;
-    }
-    
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        this.currentUserService = currentUserService;
     }
     
     public List<ReviewDto> getProductReviews(Long productId) {
@@ -50,7 +41,7 @@ public class ReviewService {
     
     @Transactional
     public ReviewDto createReview(CreateReviewRequest request) {
-        User user = getCurrentUser();
+        User user = currentUserService.getCurrentUserReference();
         Product product = productRepository.findById(request.getProductId())
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         
@@ -77,11 +68,11 @@ public class ReviewService {
     
     @Transactional
     public ReviewDto updateReview(Long reviewId, CreateReviewRequest request) {
-        User user = getCurrentUser();
+        Long userId = currentUserService.getCurrentUserId();
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new RuntimeException("Review not found"));
         
-        if (!review.getUser().getId().equals(user.getId())) {
+        if (!review.getUser().getId().equals(userId)) {
             throw new RuntimeException("Unauthorized");
         }
         
@@ -94,11 +85,11 @@ public class ReviewService {
     
     @Transactional
     public void deleteReview(Long reviewId) {
-        User user = getCurrentUser();
+        Long userId = currentUserService.getCurrentUserId();
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new RuntimeException("Review not found"));
         
-        if (!review.getUser().getId().equals(user.getId())) {
+        if (!review.getUser().getId().equals(userId)) {
             throw new RuntimeException("Unauthorized");
         }
         
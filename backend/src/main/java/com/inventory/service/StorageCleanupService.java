@@ -0,0 +1,306 @@
+package com.inventory.service;
+
+import com.inventory.entity.ProductImage;
+import com.inventory.entity.StorageDeletion;
+import com.inventory.entity.User;
+import com.inventory.repository.ProductImageRepository;
+import com.inventory.repository.ProductRepository;
+import com.inventory.repository.StorageDeletionRepository;
+import com.inventory.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Removes uploaded files off the request path. Deletions are queued in storage_deletions
+ * inside the caller's transaction, so they only happen if the owning rows are really gone,
+ * and a worker drains them in batches with retries. A nightly reconciliation compares the
+ * product and avatar directories with product_images and users.avatarUrl and removes
+ * anything nothing refers to.
+ */
+@Service
+public class StorageCleanupService {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageCleanupService.class);
+
+    private final StorageDeletionRepository storageDeletionRepository;
+    private final ProductRepository productRepository;
+    private final ProductImageRepository productImageRepository;
+    private final UserRepository userRepository;
+    private final FileStorageService fileStorageService;
+    private final AvatarImageService avatarImageService;
+    private final Counter queueReclaimedBytes;
+    private final Counter reconcileReclaimedBytes;
+
+    @Value("${app.storage.cleanup-batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.storage.retry-delay-seconds:60}")
+    private long retryDelaySeconds;
+
+    @Value("${app.storage.orphan-grace-minutes:60}")
+    private long orphanGraceMinutes;
+
+    public StorageCleanupService(StorageDeletionRepository storageDeletionRepository,
+                                 ProductRepository productRepository,
+                                 ProductImageRepository productImageRepository,
+                                 UserRepository userRepository,
+                                 FileStorageService fileStorageService,
+                                 AvatarImageService avatarImageService,
+                                 MeterRegistry meterRegistry) {
+        this.storageDeletionRepository = storageDeletionRepository;
+        this.productRepository = productRepository;
+        this.productImageRepository = productImageRepository;
+        this.userRepository = userRepository;
+        this.fileStorageService = fileStorageService;
+        this.avatarImageService = avatarImageService;
+        this.queueReclaimedBytes = meterRegistry.counter("storage.reclaimed.bytes", "source", "queue");
+        this.reconcileReclaimedBytes = meterRegistry.counter("storage.reclaimed.bytes", "source", "reconcile");
+    }
+
+    /**
+     * Queues a file or directory for deletion. Joins the caller's transaction.
+     */
+    @Transactional
+    public void enqueue(Path path) {
+        StorageDeletion deletion = new StorageDeletion();
+        deletion.setPath(fileStorageService.toStorageKey(path));
+        deletion.setAttempts(0);
+        deletion.setNextAttemptAt(LocalDateTime.now());
+        storageDeletionRepository.save(deletion);
+    }
+
+    @Transactional
+    public void enqueueAll(List<Path> paths) {
+        paths.forEach(this::enqueue);
+    }
+
+    /**
+     * Drops queued deletions of paths that are in use again, e.g. an avatar version that was
+     * uploaded a second time. Joins the caller's transaction.
+     */
+    @Transactional
+    public void cancelAll(List<Path> paths) {
+        storageDeletionRepository.deleteByPathIn(paths.stream().map(fileStorageService::toStorageKey).toList());
+    }
+
+    @Scheduled(fixedDelayString = "${app.storage.cleanup-interval-ms:30000}")
+    public void drain() {
+        List<StorageDeletion> batch = storageDeletionRepository.findByNextAttemptAtBeforeOrderByIdAsc(
+                LocalDateTime.now().plusSeconds(1), PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<StorageDeletion> done = new ArrayList<>();
+        List<StorageDeletion> failed = new ArrayList<>();
+        long bytes = 0;
+        for (StorageDeletion deletion : batch) {
+            if (isCurrentAvatar(deletion.getPath())) {
+                // Re-created after it was queued (A -> B -> A); nothing to delete
+                done.add(deletion);
+                continue;
+            }
+            try {
+                bytes += deleteRecursively(fileStorageService.resolveStorageKey(deletion.getPath()));
+                done.add(deletion);
+            } catch (IOException | RuntimeException e) {
+                int attempts = deletion.getAttempts() + 1;
+                deletion.setAttempts(attempts);
+                deletion.setLastError(truncate(e.toString()));
+                // Exponential backoff capped at one day; the row stays visible for inspection
+                long delay = Math.min(retryDelaySeconds << Math.min(attempts - 1, 16), Duration.ofDays(1).toSeconds());
+                deletion.setNextAttemptAt(LocalDateTime.now().plusSeconds(delay));
+                failed.add(deletion);
+                log.warn("Failed to delete {} (attempt {}): {}", deletion.getPath(), attempts, e.getMessage());
+            }
+        }
+
+        storageDeletionRepository.deleteAllInBatch(done);
+        storageDeletionRepository.saveAll(failed);
+        queueReclaimedBytes.increment(bytes);
+        log.info("Storage cleanup deleted {} paths ({} bytes), {} failed", done.size(), bytes, failed.size());
+    }
+
+    private boolean isCurrentAvatar(String storageKey) {
+        String[] segments = storageKey.split("/");
+        if (segments.length < 2 || !"avatars".equals(segments[0]) || !segments[1].matches("\\d+")) {
+            return false;
+        }
+        String avatarUrl = userRepository.findById(Long.valueOf(segments[1]))
+                .map(User::getAvatarUrl)
+                .orElse(null);
+        if (avatarUrl == null || !avatarUrl.startsWith("/api/images/avatars/")) {
+            return false;
+        }
+        return avatarImageService.storedPaths(avatarUrl).stream()
+                .map(fileStorageService::toStorageKey)
+                .anyMatch(key -> key.equals(storageKey) || key.startsWith(storageKey + "/"));
+    }
+
+    @Scheduled(cron = "${app.storage.reconcile-cron:0 40 3 * * *}")
+    public void reconcile() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(orphanGraceMinutes));
+        long bytes = 0;
+        try {
+            bytes += reconcileProductDirectories(cutoff);
+            bytes += reconcileAvatarDirectories(cutoff);
+        } catch (IOException e) {
+            log.warn("Storage reconciliation aborted: {}", e.getMessage());
+        }
+        reconcileReclaimedBytes.increment(bytes);
+        log.info("Storage reconciliation reclaimed {} bytes", bytes);
+    }
+
+    /**
+     * Legacy per-product directories; content-addressed blobs are handled by ImageBlobSweeper.
+     */
+    private long reconcileProductDirectories(Instant cutoff) throws IOException {
+        long bytes = 0;
+        for (Path directory : listNumericDirectories(fileStorageService.getProductImagesRoot())) {
+            Long productId = Long.valueOf(directory.getFileName().toString());
+            if (!productRepository.existsById(productId)) {
+                bytes += deleteIfOlder(directory, cutoff);
+                continue;
+            }
+
+            Set<String> referenced = new HashSet<>();
+            for (ProductImage image : productImageRepository.findByProductId(productId)) {
+                referenced.add(image.getImageUrl());
+                for (String variant : List.of(ImageVariantService.THUMB, ImageVariantService.CARD, ImageVariantService.FULL)) {
+                    referenced.add(ImageVariantService.variantUrl(image.getImageUrl(), variant));
+                }
+            }
+            bytes += deleteUnreferencedFiles(directory, referenced, cutoff);
+        }
+        return bytes;
+    }
+
+    private long reconcileAvatarDirectories(Instant cutoff) throws IOException {
+        long bytes = 0;
+        for (Path directory : listNumericDirectories(fileStorageService.getAvatarsRoot())) {
+            Optional<User> user = userRepository.findById(Long.valueOf(directory.getFileName().toString()));
+            if (user.isEmpty()) {
+                bytes += deleteIfOlder(directory, cutoff);
+                continue;
+            }
+
+            Set<String> referenced = new HashSet<>();
+            for (String url : avatarImageService.variantUrls(user.get().getAvatarUrl()).values()) {
+                referenced.add(url.split("\\?")[0]);
+            }
+            bytes += deleteUnreferencedFiles(directory, referenced, cutoff);
+            deleteEmptySubdirectories(directory, cutoff);
+        }
+        return bytes;
+    }
+
+    private long deleteUnreferencedFiles(Path directory, Set<String> referencedUrls, Instant cutoff) throws IOException {
+        List<Path> orphans;
+        try (Stream<Path> files = Files.walk(directory)) {
+            orphans = files.filter(Files::isRegularFile)
+                    .filter(file -> !referencedUrls.contains(fileStorageService.toImageUrl(file)))
+                    .toList();
+        }
+        long bytes = 0;
+        for (Path orphan : orphans) {
+            bytes += deleteIfOlder(orphan, cutoff);
+        }
+        return bytes;
+    }
+
+    /**
+     * Drops version directories left empty once their files were reclaimed. Fresh ones may be
+     * about to receive an upload.
+     */
+    private static void deleteEmptySubdirectories(Path directory, Instant cutoff) throws IOException {
+        List<Path> subdirectories;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            subdirectories = walk.filter(Files::isDirectory)
+                    .filter(path -> !path.equals(directory))
+                    .filter(path -> lastModified(path).isBefore(cutoff))
+                    .sorted(Comparator.reverseOrder())
+                    .toList();
+        }
+        for (Path subdirectory : subdirectories) {
+            try (Stream<Path> children = Files.list(subdirectory)) {
+                if (children.findAny().isPresent()) {
+                    continue;
+                }
+            }
+            Files.deleteIfExists(subdirectory);
+        }
+    }
+
+    private static List<Path> listNumericDirectories(Path root) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+        try (Stream<Path> children = Files.list(root)) {
+            return children.filter(Files::isDirectory)
+                    .filter(path -> path.getFileName().toString().matches("\\d+"))
+                    .toList();
+        }
+    }
+
+    private static long deleteIfOlder(Path path, Instant cutoff) throws IOException {
+        // Recently written files may belong to an upload whose row is not committed yet
+        if (Files.getLastModifiedTime(path).toInstant().isAfter(cutoff)) {
+            return 0;
+        }
+        return deleteRecursively(path);
+    }
+
+    /**
+     * Deletes a file or directory tree and returns the bytes freed. A missing path counts as done.
+     */
+    private static long deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        List<Path> entries;
+        try (Stream<Path> walk = Files.walk(path)) {
+            entries = walk.sorted(Comparator.reverseOrder()).toList();
+        }
+        long bytes = 0;
+        for (Path entry : entries) {
+            if (Files.isRegularFile(entry)) {
+                bytes += Files.size(entry);
+            }
+            Files.deleteIfExists(entry);
+        }
+        return bytes;
+    }
+
+    private static Instant lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant();
+        } catch (IOException e) {
+            return Instant.now();
+        }
+    }
+
+    private static String truncate(String message) {
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
@@ -0,0 +1,174 @@
+package com.inventory.service;
+
+import com.inventory.repository.UserRepository;
+import com.inventory.util.BloomFilter;
+import com.inventory.util.JwtPrincipal;
+import com.inventory.util.JwtUtil;
+import io.jsonwebtoken.JwtException;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Authenticates bearer tokens. Verified principals are cached until they expire, keyed by the
+ * token's signature segment, which already identifies it, so a cache hit costs no hashing and
+ * no lock. Revoked tokens and disabled users are rejected in memory: a bloom filter answers the
+ * common "not revoked" case before the exact sets are consulted.
+ */
+@Service
+public class TokenService {
+    
+    private final JwtUtil jwtUtil;
+    private final UserRepository userRepository;
+    
+    @Value("${app.security.token-cache-size:10000}")
+    private int cacheSize;
+    
+    @Value("${app.security.revocation-filter-size:10000}")
+    private int revocationFilterSize;
+    
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    
+    // Signature segment -> verified token. Bounded by cache-size: expired entries are swept
+    // when it fills, and while it stays full further tokens are verified without being cached
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private volatile long lastSweep = System.nanoTime() - SWEEP_INTERVAL_NANOS;
+    
+    // Signature segment -> token expiry; entries are dropped once the token would have expired anyway
+    private final Map<String, Instant> revokedTokens = new ConcurrentHashMap<>();
+    private final Set<Long> disabledUsers = ConcurrentHashMap.newKeySet();
+    private volatile BloomFilter revocationFilter;
+    
+    // Guards writers so a filter rebuild can never miss a concurrent revocation
+    private final Object revocationLock = new Object();
+    
+    public TokenService(JwtUtil jwtUtil, UserRepository userRepository) {
+        this.jwtUtil = jwtUtil;
+        this.userRepository = userRepository;
+    }
+    
+    @PostConstruct
+    void init() {
+        disabledUsers.addAll(userRepository.findIdsByEnabledFalse());
+        rebuildRevocationFilter();
+    }
+    
+    /**
+     * Returns the verified principal for a token, or throws if it is invalid, expired,
+     * revoked or belongs to a disabled user.
+     */
+    public JwtPrincipal authenticate(String token) {
+        String key = signature(token);
+        if (isRevoked("t:" + key, () -> revokedTokens.containsKey(key))) {
+            throw new JwtException("Token has been revoked");
+        }
+        
+        // The full token must match too, so a cached signature cannot vouch for another payload
+        VerifiedToken cached = verifiedTokens.get(key);
+        JwtPrincipal principal;
+        if (cached != null && cached.token().equals(token) && !cached.principal().isExpired()) {
+            principal = cached.principal();
+        } else {
+            // Throws on a bad signature or an expired token
+            principal = jwtUtil.parseToken(token);
+            cache(key, new VerifiedToken(token, principal));
+        }
+        
+        Long userId = principal.getUserId();
+        if (isRevoked("u:" + userId, () -> disabledUsers.contains(userId))) {
+            throw new JwtException("User is disabled");
+        }
+        return principal;
+    }
+    
+    public void revokeToken(String token) {
+        String key = signature(token);
+        Instant expiresAt;
+        try {
+            expiresAt = jwtUtil.parseToken(token).getExpiresAt();
+        } catch (JwtException e) {
+            // Already invalid or expired, nothing to revoke
+            return;
+        }
+        synchronized (revocationLock) {
+            revokedTokens.put(key, expiresAt);
+            revocationFilter.add("t:" + key);
+        }
+        verifiedTokens.remove(key);
+    }
+    
+    public void disableUser(Long userId) {
+        synchronized (revocationLock) {
+            disabledUsers.add(userId);
+            revocationFilter.add("u:" + userId);
+        }
+    }
+    
+    public void enableUser(Long userId) {
+        // The filter keeps the stale bit until the next rebuild; the exact set is authoritative
+        disabledUsers.remove(userId);
+    }
+    
+    @Scheduled(fixedRate = 600000) // Run every 10 minutes
+    public void pruneRevocations() {
+        Instant now = Instant.now();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+        verifiedTokens.values().removeIf(verified -> verified.principal().isExpired());
+        rebuildRevocationFilter();
+    }
+    
+    private void cache(String key, VerifiedToken verified) {
+        if (verifiedTokens.size() >= cacheSize && !makeRoom()) {
+            return;
+        }
+        verifiedTokens.put(key, verified);
+    }
+    
+    /**
+     * Drops expired entries. One thread sweeps at a time, at most once per SWEEP_INTERVAL, so a
+     * cache full of live tokens does not turn every request into a scan.
+     */
+    private boolean makeRoom() {
+        long now = System.nanoTime();
+        if (now - lastSweep >= SWEEP_INTERVAL_NANOS && sweeping.compareAndSet(false, true)) {
+            try {
+                lastSweep = now;
+                verifiedTokens.values().removeIf(verified -> verified.principal().isExpired());
+            } finally {
+                sweeping.set(false);
+            }
+        }
+        return verifiedTokens.size() < cacheSize;
+    }
+    
+    private boolean isRevoked(String filterKey, BooleanSupplier exactCheck) {
+        return revocationFilter.mightContain(filterKey) && exactCheck.getAsBoolean();
+    }
+    
+    private void rebuildRevocationFilter() {
+        synchronized (revocationLock) {
+            BloomFilter filter = new BloomFilter(
+                    Math.max(revocationFilterSize, 2 * (revokedTokens.size() + disabledUsers.size())), 0.01);
+            revokedTokens.keySet().forEach(key -> filter.add("t:" + key));
+            disabledUsers.forEach(id -> filter.add("u:" + id));
+            revocationFilter = filter;
+        }
+    }
+    
+    private static String signature(String token) {
+        return token.substring(token.lastIndexOf('.') + 1);
+    }
+    
+    private record VerifiedToken(String token, JwtPrincipal principal) {
+    }
+}
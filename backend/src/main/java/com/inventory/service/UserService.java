@@ -20,10 +20,20 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    private final TokenService tokenService;
+    private final RefreshTokenService refreshTokenService;
+    private final FileStorageService fileStorageService;
+    private final StorageCleanupService storageCleanupService;
+
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, TokenService tokenService,
+                       RefreshTokenService refreshTokenService, FileStorageService fileStorageService,
+                       StorageCleanupService storageCleanupService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.tokenService = tokenService;
+        this.refreshTokenService = refreshTokenService;
+        this.fileStorageService = fileStorageService;
+        this.storageCleanupService = storageCleanupService;
     }
 
     public PageResponse<UserDto> getUsers(User.Role role, String keyword, Pageable pageable) {
@@ -79,6 +89,14 @@ public class UserService {
         }
 
         user = userRepository.save(user);
+        
+        // Takes effect on the user's next request without a per-request DB check
+        if (Boolean.FALSE.equals(user.getEnabled())) {
+            tokenService.disableUser(user.getId());
+            refreshTokenService.revokeAllForUser(user.getId());
+        } else {
+            tokenService.enableUser(user.getId());
+        }
         return toDto(user);
     }
 
@@ -88,6 +106,8 @@ public class UserService {
             throw new RuntimeException("User not found");
         }
         userRepository.deleteById(id);
+        tokenService.disableUser(id);
+        storageCleanupService.enqueue(fileStorageService.getAvatarDirectory(id));
     }
 
     public List<UserDto> getUsersByRole(User.Role role) {
@@ -1,14 +1,12 @@
 package com.inventory.service;
 
+import com.inventory.dto.ImageVariantsDto;
 import com.inventory.dto.WishlistDto;
 import com.inventory.entity.Product;
 import com.inventory.entity.User;
 import com.inventory.entity.Wishlist;
 import com.inventory.repository.ProductRepository;
-import com.inventory.repository.UserRepository;
 import com.inventory.repository.WishlistRepository;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,30 +18,26 @@ public class WishlistService {
     
     private final WishlistRepository wishlistRepository;
     private final ProductRepository productRepository;
-    private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
+    private final ImageVariantService imageVariantService;
     
-    public WishlistService(WishlistRepository wishlistRepository, ProductRepository productRepository, UserRepository userRepository) {
+    public WishlistService(WishlistRepository wishlistRepository, ProductRepository productRepository, CurrentUserService currentUserService,
+                           ImageVariantService imageVariantService) {
         this.wishlistRepository = wishlistRepository;
         this.productRepository = productRepository;
-        this.userRepository = userRepository;
-    }
-    
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        this.currentUserService = currentUserService;
+        this.imageVariantService = imageVariantService;
     }
     
     public List<WishlistDto> getWishlist() {
-        User user = getCurrentUser();
+        User user = currentUserService.getCurrentUserReference();
         List<Wishlist> wishlistItems = wishlistRepository.findByUser(user);
         return wishlistItems.stream().map(this::toDto).collect(Collectors.toList());
     }
     
     @Transactional
     public WishlistDto addToWishlist(Long productId) {
-        User user = getCurrentUser();
+        User user = currentUserService.getCurrentUserReference();
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         
@@ -61,11 +55,11 @@ public class WishlistService {
     
     @Transactional
     public void removeFromWishlist(Long wishlistId) {
-        User user = getCurrentUser();
+        Long userId = currentUserService.getCurrentUserId();
         Wishlist wishlist = wishlistRepository.findById(wishlistId)
                 .orElseThrow(() -> new RuntimeException("Wishlist item not found"));
         
-        if (!wishlist.getUser().getId().equals(user.getId())) {
+        if (!wishlist.getUser().getId().equals(userId)) {
             throw new RuntimeException("Unauthorized");
         }
         
@@ -75,6 +69,8 @@ public class WishlistService {
     private WishlistDto toDto(Wishlist wishlist) {
         Product product = wishlist.getProduct();
         String productImage = product.getImages().isEmpty() ? null : product.getImages().get(0).getImageUrl();
+        ImageVariantsDto productImageVariants = product.getImages().isEmpty()
+                ? null : imageVariantService.toVariants(product.getImages().get(0));
         
         return new WishlistDto(
                 wishlist.getId(),
@@ -82,6 +78,7 @@ public class WishlistService {
                 product.getName(),
                 product.getPrice(),
                 productImage,
+                productImageVariants,
                 wishlist.getCreatedAt()
         );
     }
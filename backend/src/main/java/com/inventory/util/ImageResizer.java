@@ -0,0 +1,154 @@
+package com.inventory.util;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+
+/**
+ * Decoding, downscaling and JPEG encoding with the JDK's ImageIO. Re-encoding drops all
+ * source metadata (EXIF, ICC comments, thumbnails).
+ */
+public class ImageResizer {
+    
+    private ImageResizer() {
+    }
+    
+    /**
+     * Decodes an image after checking the dimensions in its header, so a small file that
+     * declares an enormous canvas (a decompression bomb) is rejected before any pixel buffer
+     * is allocated.
+     */
+    public static BufferedImage read(Path source, long maxPixels) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            return read(input, maxPixels, source.getFileName().toString());
+        }
+    }
+    
+    public static BufferedImage read(InputStream source, long maxPixels) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source)) {
+            return read(input, maxPixels, "upload");
+        }
+    }
+    
+    private static BufferedImage read(ImageInputStream input, long maxPixels, String name) throws IOException {
+        Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+        if (readers == null || !readers.hasNext()) {
+            throw new IOException("Unsupported image format: " + name);
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(input, true, true);
+            long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+            if (pixels > maxPixels) {
+                throw new IOException("Image " + name + " is too large: " + reader.getWidth(0) + "x" + reader.getHeight(0));
+            }
+            BufferedImage image = reader.read(0);
+            if (image == null) {
+                throw new IOException("Unsupported image format: " + name);
+            }
+            return image;
+        } finally {
+            reader.dispose();
+        }
+    }
+    
+    /**
+     * Crops the largest centered square out of the image.
+     */
+    public static BufferedImage cropToSquare(BufferedImage source) {
+        int size = Math.min(source.getWidth(), source.getHeight());
+        int x = (source.getWidth() - size) / 2;
+        int y = (source.getHeight() - size) / 2;
+        return source.getSubimage(x, y, size, size);
+    }
+    
+    /**
+     * Scales the image down to at most {@code maxWidth}, keeping the aspect ratio. Large
+     * reductions are done in halving steps, which looks much better than a single bilinear pass.
+     * Images are never upscaled; transparency is flattened onto white.
+     */
+    public static BufferedImage scaleToWidth(BufferedImage source, int maxWidth) {
+        int targetWidth = Math.min(maxWidth, source.getWidth());
+        int targetHeight = Math.max(1, Math.round(source.getHeight() * (targetWidth / (float) source.getWidth())));
+        
+        BufferedImage current = toRgb(source);
+        int width = current.getWidth();
+        int height = current.getHeight();
+        while (width / 2 >= targetWidth) {
+            width /= 2;
+            height = Math.max(1, height / 2);
+            current = draw(current, width, height);
+        }
+        if (width != targetWidth) {
+            current = draw(current, targetWidth, targetHeight);
+        }
+        return current;
+    }
+    
+    /**
+     * Writes a baseline JPEG through a temp file and an atomic rename, so readers never see
+     * a partially written image.
+     */
+    public static void writeJpeg(BufferedImage image, float quality, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), ".tmp-", ".jpg");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+                writer.setOutput(output);
+                writer.write(null, new IIOImage(toRgb(image), null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    private static BufferedImage toRgb(BufferedImage source) {
+        if (source.getType() == BufferedImage.TYPE_INT_RGB) {
+            return source;
+        }
+        BufferedImage rgb = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rgb.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, source.getWidth(), source.getHeight());
+            graphics.drawImage(source, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return rgb;
+    }
+    
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+}
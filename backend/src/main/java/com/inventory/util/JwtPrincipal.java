@@ -0,0 +1,63 @@
+package com.inventory.util;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Immutable result of a single verified JWT parse. Implements {@link Principal} so that
+ * {@code Authentication.getName()} keeps returning the user's email.
+ */
+public final class JwtPrincipal implements Principal {
+    
+    private final String email;
+    private final String role;
+    private final Long userId;
+    private final Instant expiresAt;
+    private final List<GrantedAuthority> authorities;
+    
+    public JwtPrincipal(String email, String role, Long userId, Instant expiresAt) {
+        this.email = email;
+        this.role = role;
+        this.userId = userId;
+        this.expiresAt = expiresAt;
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role));
+    }
+    
+    @Override
+    public String getName() {
+        return email;
+    }
+    
+    public String getEmail() {
+        return email;
+    }
+    
+    public String getRole() {
+        return role;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+    
+    public boolean isExpired() {
+        return expiresAt.isBefore(Instant.now());
+    }
+    
+    @Override
+    public String toString() {
+        return email;
+    }
+}
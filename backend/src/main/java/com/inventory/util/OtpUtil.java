@@ -1,13 +1,12 @@
 package com.inventory.util;
 
-import java.util.Random;
+import java.security.SecureRandom;
 
 public class OtpUtil {
     
-    private static final Random random = new Random();
+    private static final SecureRandom random = new SecureRandom();
     
     public static String generateOtp() {
         return String.format("%06d", random.nextInt(1000000));
     }
 }
-
@@ -0,0 +1,217 @@
+package com.inventory.controller;
+
+import com.inventory.service.FileStorageService;
+import com.inventory.service.ImageResizeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ImageControllerTest {
+    
+    private static final String HASH = "ab" + "0123456789abcdef".repeat(4).substring(2);
+    private static final String BLOB_URL = "/api/images/products/blobs/ab/" + HASH + ".png";
+    private static final String LEGACY_URL = "/api/images/products/12/photo.png";
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    
+    @TempDir
+    Path uploadRoot;
+    
+    private MockMvc mockMvc;
+    private byte[] blob;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        FileStorageService fileStorageService = new FileStorageService(1);
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", uploadRoot.resolve("products").toString());
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new ImageController(fileStorageService, mock(ImageResizeService.class)))
+                .build();
+        
+        blob = new byte[1000];
+        for (int i = 0; i < blob.length; i++) {
+            blob[i] = (byte) i;
+        }
+        write("products/blobs/ab/" + HASH + ".png", blob);
+        write("products/12/photo.png", blob);
+        write("products/12/photo.png.br", "brotli".getBytes(StandardCharsets.US_ASCII));
+        write("products/12/photo.png.gz", "gzip".getBytes(StandardCharsets.US_ASCII));
+        write("products/blobs/.cache/ab/thumb.jpg", blob);
+    }
+    
+    @Test
+    void servesOriginalBlobsAsImmutableWithTheirHashAsEtag() throws Exception {
+        mockMvc.perform(image(BLOB_URL))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + HASH + "\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, IMMUTABLE))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 1000))
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().bytes(blob));
+    }
+    
+    @Test
+    void requiresRevalidationForMutablePaths() throws Exception {
+        mockMvc.perform(image(LEGACY_URL))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, no-cache"));
+    }
+    
+    @Test
+    void answersMatchingIfNoneMatchWithNotModified() throws Exception {
+        mockMvc.perform(image(BLOB_URL).header(HttpHeaders.IF_NONE_MATCH, "\"" + HASH + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + HASH + "\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, IMMUTABLE))
+                .andExpect(content().bytes(new byte[0]));
+        
+        mockMvc.perform(image(BLOB_URL).header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+                .andExpect(status().isOk());
+    }
+    
+    @Test
+    void servesSingleByteRanges() throws Exception {
+        mockMvc.perform(image(BLOB_URL).header(HttpHeaders.RANGE, "bytes=100-199"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 100-199/1000"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 100))
+                .andExpect(content().bytes(Arrays.copyOfRange(blob, 100, 200)));
+        
+        mockMvc.perform(image(BLOB_URL).header(HttpHeaders.RANGE, "bytes=1000-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */1000"));
+    }
+    
+    @Test
+    void ignoresRangeWhenIfRangeDoesNotMatch() throws Exception {
+        mockMvc.perform(image(BLOB_URL)
+                        .header(HttpHeaders.RANGE, "bytes=100-199")
+                        .header(HttpHeaders.IF_RANGE, "\"" + HASH + "\""))
+                .andExpect(status().isPartialContent());
+        
+        mockMvc.perform(image(BLOB_URL)
+                        .header(HttpHeaders.RANGE, "bytes=100-199")
+                        .header(HttpHeaders.IF_RANGE, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().bytes(blob));
+    }
+    
+    @Test
+    void negotiatesPrecompressedSiblings() throws Exception {
+        String etag = mockMvc.perform(image(LEGACY_URL))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().bytes(blob))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String identity = etag.substring(0, etag.length() - 1);
+        
+        mockMvc.perform(image(LEGACY_URL).header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "br"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, identity + "-br\""))
+                .andExpect(content().string("brotli"));
+        
+        mockMvc.perform(image(LEGACY_URL).header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, identity + "-gzip\""))
+                .andExpect(content().string("gzip"));
+        
+        // Ranges apply to the identity encoding only
+        mockMvc.perform(image(LEGACY_URL)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "br")
+                        .header(HttpHeaders.RANGE, "bytes=0-1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "br"));
+    }
+    
+    @Test
+    void hidesDotPrefixedPaths() throws Exception {
+        mockMvc.perform(image("/api/images/products/blobs/.cache/ab/thumb.jpg"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(image("/api/images/products/12/missing.png"))
+                .andExpect(status().isNotFound());
+    }
+    
+    private static MockHttpServletRequestBuilder image(String url) {
+        // The controller resolves files from the servlet path, as under the dispatcher servlet
+        return get(url).servletPath(url);
+    }
+    
+    private void write(String relative, byte[] bytes) throws IOException {
+        Path file = uploadRoot.resolve(relative);
+        Files.createDirectories(file.getParent());
+        Files.write(file, bytes);
+    }
+    
+    @Test
+    void parsesBoundedOpenAndSuffixRanges() {
+        assertThat(ImageController.parseRange("bytes=0-99", 1000)).containsExactly(0, 99);
+        assertThat(ImageController.parseRange("bytes=500-", 1000)).containsExactly(500, 999);
+        assertThat(ImageController.parseRange("bytes=-100", 1000)).containsExactly(900, 999);
+        assertThat(ImageController.parseRange("bytes=-5000", 1000)).containsExactly(0, 999);
+    }
+    
+    @Test
+    void clampsEndToLength() {
+        assertThat(ImageController.parseRange("bytes=900-5000", 1000)).containsExactly(900, 999);
+    }
+    
+    @Test
+    void rejectsRangesOutsideTheFile() {
+        assertThat(ImageController.parseRange("bytes=1000-", 1000)).isSameAs(ImageController.UNSATISFIABLE);
+        assertThat(ImageController.parseRange("bytes=-0", 1000)).isSameAs(ImageController.UNSATISFIABLE);
+        assertThat(ImageController.parseRange("bytes=-10", 0)).isSameAs(ImageController.UNSATISFIABLE);
+    }
+    
+    @Test
+    void ignoresMalformedAndMultipleRanges() {
+        assertThat(ImageController.parseRange("items=0-10", 1000)).isNull();
+        assertThat(ImageController.parseRange("bytes=0-10,20-30", 1000)).isNull();
+        assertThat(ImageController.parseRange("bytes=10", 1000)).isNull();
+        assertThat(ImageController.parseRange("bytes=a-b", 1000)).isNull();
+        assertThat(ImageController.parseRange("bytes=50-10", 1000)).isNull();
+    }
+    
+    @Test
+    void matchesStrongWeakAndWildcardEtags() {
+        String etag = "\"abc\"";
+        assertThat(ImageController.matchesEtag(null, etag)).isFalse();
+        assertThat(ImageController.matchesEtag("\"abc\"", etag)).isTrue();
+        assertThat(ImageController.matchesEtag("W/\"abc\"", etag)).isTrue();
+        assertThat(ImageController.matchesEtag("\"x\", \"abc\"", etag)).isTrue();
+        assertThat(ImageController.matchesEtag("*", etag)).isTrue();
+        assertThat(ImageController.matchesEtag("\"abcd\"", etag)).isFalse();
+    }
+    
+    @Test
+    void precompressedEtagsDifferFromIdentity() {
+        String etag = "\"abc\"";
+        String brotli = ImageController.withEncoding(etag, Path.of("abc.png.br"));
+        String gzip = ImageController.withEncoding(etag, Path.of("abc.png.gz"));
+        assertThat(brotli).isEqualTo("\"abc-br\"");
+        assertThat(gzip).isEqualTo("\"abc-gzip\"");
+        assertThat(ImageController.matchesEtag(etag, brotli)).isFalse();
+    }
+}
@@ -0,0 +1,146 @@
+package com.inventory.service;
+
+import com.inventory.config.ImageProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AvatarImageServiceTest {
+    
+    private static final int APP1 = 0xE1;
+    
+    @TempDir
+    Path uploadRoot;
+    
+    private FileStorageService fileStorageService;
+    private AvatarImageService avatarImageService;
+    
+    @BeforeEach
+    void setUp() {
+        fileStorageService = new FileStorageService(1);
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", uploadRoot.resolve("products").toString());
+        ReflectionTestUtils.setField(fileStorageService, "maxImageBytes", 10_485_760L);
+        ReflectionTestUtils.setField(fileStorageService, "maxImages", 10);
+        avatarImageService = new AvatarImageService(fileStorageService, new ImageProperties());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        avatarImageService.shutdown();
+        fileStorageService.shutdown();
+    }
+    
+    @Test
+    void storesEveryConfiguredSizeSquareWithoutMetadata() throws IOException {
+        byte[] upload = withExif(jpeg(400, 300));
+        assertThat(markers(upload)).contains(APP1);
+        
+        String avatarUrl = avatarImageService.saveAvatar(7L,
+                new MockMultipartFile("file", "photo.jpg", "image/jpeg", upload));
+        
+        assertThat(avatarUrl).matches("/api/images/avatars/7/[0-9a-f]{16}/avatar-256\\.jpg");
+        assertThat(fileStorageService.isImmutableUrl(avatarUrl)).isTrue();
+        
+        Path directory = fileStorageService.resolveImagePath(avatarUrl).getParent();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                    .containsExactlyInAnyOrder("avatar-64.jpg", "avatar-128.jpg", "avatar-256.jpg");
+        }
+        for (int size : List.of(64, 128, 256)) {
+            byte[] stored = Files.readAllBytes(directory.resolve("avatar-" + size + ".jpg"));
+            BufferedImage image = ImageIO.read(directory.resolve("avatar-" + size + ".jpg").toFile());
+            assertThat(image.getWidth()).isEqualTo(size);
+            assertThat(image.getHeight()).isEqualTo(size);
+            assertThat(markers(stored)).doesNotContain(APP1);
+            assertThat(new String(stored, StandardCharsets.ISO_8859_1)).doesNotContain("Exif", "secret-camera");
+        }
+        assertThat(avatarImageService.variantUrls(avatarUrl)).containsOnlyKeys(64, 128, 256);
+    }
+    
+    @Test
+    void reuploadingTheSameImageKeepsItsVersion() throws IOException {
+        byte[] upload = withExif(jpeg(300, 400));
+        MockMultipartFile file = new MockMultipartFile("file", "photo.jpg", "image/jpeg", upload);
+        
+        assertThat(avatarImageService.saveAvatar(7L, file)).isEqualTo(avatarImageService.saveAvatar(7L, file));
+    }
+    
+    private static byte[] jpeg(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(Color.ORANGE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.setColor(Color.BLUE);
+            graphics.fillOval(width / 4, height / 4, width / 2, height / 2);
+        } finally {
+            graphics.dispose();
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", output);
+        return output.toByteArray();
+    }
+    
+    /**
+     * Inserts an APP1 Exif segment (big-endian TIFF header, one ASCII Make tag) after SOI.
+     */
+    private static byte[] withExif(byte[] jpeg) {
+        byte[] make = "secret-camera\0".getBytes(StandardCharsets.US_ASCII);
+        ByteArrayOutputStream tiff = new ByteArrayOutputStream();
+        tiff.writeBytes(new byte[]{'M', 'M', 0, 42, 0, 0, 0, 8});
+        tiff.writeBytes(new byte[]{0, 1});
+        // Tag 0x010F (Make), type ASCII, count, offset of the value after this IFD
+        tiff.writeBytes(new byte[]{0x01, 0x0F, 0, 2, 0, 0, 0, (byte) make.length, 0, 0, 0, 26});
+        tiff.writeBytes(new byte[]{0, 0, 0, 0});
+        tiff.writeBytes(make);
+        
+        byte[] payload = tiff.toByteArray();
+        int length = 2 + 6 + payload.length;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.write(0xFF);
+        output.write(0xD8);
+        output.write(0xFF);
+        output.write(APP1);
+        output.write(length >> 8);
+        output.write(length & 0xFF);
+        output.writeBytes("Exif\0\0".getBytes(StandardCharsets.US_ASCII));
+        output.writeBytes(payload);
+        output.write(jpeg, 2, jpeg.length - 2);
+        return output.toByteArray();
+    }
+    
+    /**
+     * Marker types of the segments before the image data.
+     */
+    private static List<Integer> markers(byte[] jpeg) {
+        List<Integer> markers = new ArrayList<>();
+        int position = 2;
+        while (position + 4 <= jpeg.length && (jpeg[position] & 0xFF) == 0xFF) {
+            int marker = jpeg[position + 1] & 0xFF;
+            markers.add(marker);
+            if (marker == 0xDA) {
+                break;
+            }
+            position += 2 + (((jpeg[position + 2] & 0xFF) << 8) | (jpeg[position + 3] & 0xFF));
+        }
+        return markers;
+    }
+}
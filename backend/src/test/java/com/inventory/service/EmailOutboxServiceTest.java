@@ -0,0 +1,67 @@
+package com.inventory.service;
+
+import com.inventory.entity.EmailOutbox;
+import com.inventory.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class EmailOutboxServiceTest {
+    
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+    
+    private EmailOutboxService outboxService;
+    
+    @BeforeEach
+    void setUp() {
+        outboxService = new EmailOutboxService(outboxRepository, mock(MailDispatchService.class),
+                new SimpleMeterRegistry());
+    }
+    
+    @Test
+    void duplicateKeyIsReportedAndLeavesTheCallersTransactionCommittable() {
+        LocalDateTime now = LocalDateTime.now();
+        assertThat(outboxRepository.insertIfAbsent("a@example.com", "Order placed", "body",
+                EmailOutbox.Priority.NORMAL, "order-1", false, now)).isEqualTo(1);
+        assertThat(outboxRepository.insertIfAbsent("a@example.com", "Order placed", "body",
+                EmailOutbox.Priority.NORMAL, "order-1", false, now)).isZero();
+        outboxService.enqueue("a@example.com", "Order placed", "body", EmailOutbox.Priority.NORMAL, "order-1");
+        outboxService.enqueue("b@example.com", "Welcome", "body", EmailOutbox.Priority.LOW, "welcome-1");
+        
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        
+        assertThat(outboxRepository.findAll())
+                .extracting(EmailOutbox::getDedupeKey)
+                .containsExactlyInAnyOrder("order-1", "welcome-1");
+        outboxRepository.deleteAll();
+    }
+    
+    @Test
+    void insertedRowIsPendingAndDueNow() {
+        outboxService.enqueue("a@example.com", "Reset code", "123456", EmailOutbox.Priority.HIGH, "otp-1", true);
+        
+        EmailOutbox row = outboxRepository.findAll().get(0);
+        assertThat(row.getStatus()).isEqualTo(EmailOutbox.Status.PENDING);
+        assertThat(row.getPriority()).isEqualTo(EmailOutbox.Priority.HIGH);
+        assertThat(row.getAttempts()).isZero();
+        assertThat(row.isSensitive()).isTrue();
+        assertThat(row.getCreatedAt()).isNotNull();
+        assertThat(row.getNextAttemptAt()).isNotNull();
+    }
+}
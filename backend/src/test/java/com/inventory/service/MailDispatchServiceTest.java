@@ -0,0 +1,281 @@
+package com.inventory.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MailDispatchServiceTest {
+    
+    private SmtpStub smtp;
+    private SimpleMeterRegistry meterRegistry;
+    private MailDispatchService dispatchService;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        smtp = new SmtpStub();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+    
+    @AfterEach
+    void tearDown() throws Exception {
+        smtp.releaseGreeting();
+        if (dispatchService != null) {
+            dispatchService.shutdown();
+        }
+        smtp.close();
+    }
+    
+    @Test
+    void sendsQueuedMessagesAsOneBatchOverOneSession() throws Exception {
+        dispatchService = newService(100, 3, 10);
+        smtp.holdGreeting();
+        List<RecordingListener> listeners = new CopyOnWriteArrayList<>();
+        
+        // The worker takes the first message and stalls on the greeting while five more queue up
+        listeners.add(submit("first"));
+        smtp.awaitSession();
+        for (int i = 0; i < 5; i++) {
+            listeners.add(submit("queued-" + i));
+        }
+        assertThat(meterRegistry.get("mail.queue.depth").gauge().value()).isEqualTo(5);
+        smtp.releaseGreeting();
+        
+        for (RecordingListener listener : listeners) {
+            assertThat(listener.await()).isEqualTo("sent");
+        }
+        assertThat(smtp.sessions.get()).isEqualTo(2);
+        assertThat(smtp.delivered).hasSize(6);
+        assertThat(meterRegistry.get("mail.sent").counter().count()).isEqualTo(6);
+        assertThat(meterRegistry.get("mail.send.latency").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("mail.queue.depth").gauge().value()).isZero();
+    }
+    
+    @Test
+    void retriesTransientFailuresWithBackoffUntilDelivered() throws Exception {
+        dispatchService = newService(100, 3, 10);
+        smtp.rejectNext(2);
+        
+        RecordingListener listener = submit("flaky");
+        
+        assertThat(listener.await()).isEqualTo("sent");
+        assertThat(smtp.sessions.get()).isEqualTo(3);
+        assertThat(meterRegistry.get("mail.retried").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("mail.sent").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("mail.failed").counter().count()).isZero();
+        assertThat(meterRegistry.get("mail.send.latency").timer().count()).isEqualTo(3);
+    }
+    
+    @Test
+    void givesUpAfterMaxAttempts() throws Exception {
+        dispatchService = newService(100, 3, 10);
+        smtp.rejectNext(3);
+        
+        RecordingListener listener = submit("doomed");
+        
+        assertThat(listener.await()).isEqualTo("failed");
+        assertThat(meterRegistry.get("mail.retried").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("mail.failed").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("mail.sent").counter().count()).isZero();
+        assertThat(smtp.delivered).isEmpty();
+    }
+    
+    @Test
+    void singleAttemptSubmitNeverRetries() throws Exception {
+        dispatchService = newService(100, 3, 10);
+        smtp.rejectNext(1);
+        
+        RecordingListener listener = new RecordingListener();
+        assertThat(dispatchService.submitOnce(message("once"), listener)).isTrue();
+        
+        assertThat(listener.await()).isEqualTo("failed");
+        assertThat(smtp.sessions.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("mail.retried").counter().count()).isZero();
+        assertThat(meterRegistry.get("mail.failed").counter().count()).isEqualTo(1);
+    }
+    
+    @Test
+    void rejectsSubmissionsWhileTheQueueIsFull() throws Exception {
+        dispatchService = newService(1, 3, 10);
+        smtp.holdGreeting();
+        
+        RecordingListener inFlight = submit("in-flight");
+        smtp.awaitSession();
+        RecordingListener queued = submit("queued");
+        
+        assertThat(dispatchService.submit(message("overflow"))).isFalse();
+        assertThat(meterRegistry.get("mail.rejected").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("mail.queue.depth").gauge().value()).isEqualTo(1);
+        
+        smtp.releaseGreeting();
+        assertThat(inFlight.await()).isEqualTo("sent");
+        assertThat(queued.await()).isEqualTo("sent");
+    }
+    
+    private MailDispatchService newService(int queueCapacity, int maxAttempts, long backoffMs) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtp.port());
+        return new MailDispatchService(mailSender, meterRegistry, queueCapacity, 1, 50, maxAttempts, backoffMs, 10);
+    }
+    
+    private RecordingListener submit(String subject) {
+        RecordingListener listener = new RecordingListener();
+        assertThat(dispatchService.submit(message(subject), listener)).isTrue();
+        return listener;
+    }
+    
+    private static SimpleMailMessage message(String subject) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("shop@example.com");
+        message.setTo("customer@example.com");
+        message.setSubject(subject);
+        message.setText("body");
+        return message;
+    }
+    
+    private static class RecordingListener implements MailDispatchService.DeliveryListener {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final AtomicReference<String> outcome = new AtomicReference<>();
+        
+        @Override
+        public void onSent() {
+            outcome.set("sent");
+            done.countDown();
+        }
+        
+        @Override
+        public void onFailed(Exception cause) {
+            outcome.set("failed");
+            done.countDown();
+        }
+        
+        String await() throws InterruptedException {
+            assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+            return outcome.get();
+        }
+    }
+    
+    /**
+     * Just enough SMTP to accept JavaMail sessions, counting connections and optionally
+     * answering the end of DATA with a transient 451.
+     */
+    private static class SmtpStub implements AutoCloseable {
+        private final ServerSocket server = new ServerSocket(0);
+        private final AtomicInteger sessions = new AtomicInteger();
+        private final AtomicInteger rejectRemaining = new AtomicInteger();
+        private final List<String> delivered = new CopyOnWriteArrayList<>();
+        private final CountDownLatch sessionStarted = new CountDownLatch(1);
+        private volatile CountDownLatch greetingGate = new CountDownLatch(0);
+        
+        SmtpStub() throws IOException {
+            Thread acceptor = new Thread(this::acceptLoop, "smtp-stub");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+        
+        int port() {
+            return server.getLocalPort();
+        }
+        
+        void holdGreeting() {
+            greetingGate = new CountDownLatch(1);
+        }
+        
+        void releaseGreeting() {
+            greetingGate.countDown();
+        }
+        
+        void awaitSession() throws InterruptedException {
+            assertThat(sessionStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        }
+        
+        void rejectNext(int messages) {
+            rejectRemaining.set(messages);
+        }
+        
+        private void acceptLoop() {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    Thread session = new Thread(() -> serve(socket), "smtp-stub-session");
+                    session.setDaemon(true);
+                    session.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+        
+        private void serve(Socket socket) {
+            sessions.incrementAndGet();
+            sessionStarted.countDown();
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+                 Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.ISO_8859_1)) {
+                greetingGate.await();
+                reply(out, "220 localhost ESMTP");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                    switch (command) {
+                        case "DATA" -> {
+                            reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                            String subject = null;
+                            while ((line = in.readLine()) != null && !line.equals(".")) {
+                                if (subject == null && line.startsWith("Subject: ")) {
+                                    subject = line.substring("Subject: ".length());
+                                }
+                            }
+                            if (rejectRemaining.getAndDecrement() > 0) {
+                                reply(out, "451 4.3.0 Try again later");
+                            } else {
+                                delivered.add(subject);
+                                reply(out, "250 2.0.0 Queued");
+                            }
+                        }
+                        case "QUIT" -> {
+                            reply(out, "221 2.0.0 Bye");
+                            return;
+                        }
+                        default -> reply(out, "250 OK");
+                    }
+                }
+            } catch (SocketException e) {
+                // Client went away
+            } catch (IOException | InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        
+        private static void reply(Writer out, String line) throws IOException {
+            out.write(line + "\r\n");
+            out.flush();
+        }
+        
+        @Override
+        public void close() throws IOException {
+            server.close();
+        }
+    }
+}
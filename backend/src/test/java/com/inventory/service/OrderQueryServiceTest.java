@@ -0,0 +1,113 @@
+package com.inventory.service;
+
+import com.inventory.dto.OrderDto;
+import com.inventory.entity.Category;
+import com.inventory.entity.Order;
+import com.inventory.entity.OrderItem;
+import com.inventory.entity.Product;
+import com.inventory.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// H2 in MySQL mode with the MySQL dialect, so repository queries validate as they do in production
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:orders;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(OrderQueryService.class)
+class OrderQueryServiceTest {
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private OrderQueryService orderQueryService;
+    
+    @Test
+    void buildsAnyNumberOfOrdersInTwoStatements() {
+        User customer = persistUser("customer@example.com", User.Role.CUSTOMER);
+        User staff = persistUser("staff@example.com", User.Role.STAFF);
+        Category category = new Category();
+        category.setName("Tools");
+        entityManager.persist(category);
+        Product hammer = persistProduct(category, "Hammer");
+        Product wrench = persistProduct(category, "Wrench");
+        
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Order order = new Order();
+            order.setUser(customer);
+            order.setStaff(i % 2 == 0 ? staff : null);
+            order.setTotalAmount(new BigDecimal("30.00"));
+            order.setShippingAddress("1 Main St");
+            entityManager.persist(order);
+            persistItem(order, hammer, 1);
+            persistItem(order, wrench, 2);
+            orderIds.add(order.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        
+        // Newest first, as the listings request them
+        Collections.reverse(orderIds);
+        List<OrderDto> dtos = orderQueryService.getOrderDtos(orderIds);
+        
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(dtos).extracting(OrderDto::getId).containsExactlyElementsOf(orderIds);
+        assertThat(dtos).allSatisfy(dto -> {
+            assertThat(dto.getUserName()).isEqualTo("customer@example.com");
+            assertThat(dto.getOrderItems()).extracting("productName").containsExactly("Hammer", "Wrench");
+        });
+        assertThat(dtos.get(0).getStaffName()).isEqualTo("staff@example.com");
+        assertThat(dtos.get(1).getStaffId()).isNull();
+    }
+    
+    private User persistUser(String email, User.Role role) {
+        User user = new User();
+        user.setEmail(email);
+        user.setName(email);
+        user.setPassword("secret");
+        user.setRole(role);
+        return entityManager.persist(user);
+    }
+    
+    private Product persistProduct(Category category, String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal("10.00"));
+        product.setStock(100);
+        product.setCategory(category);
+        return entityManager.persist(product);
+    }
+    
+    private void persistItem(Order order, Product product, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setPrice(product.getPrice());
+        entityManager.persist(item);
+    }
+}
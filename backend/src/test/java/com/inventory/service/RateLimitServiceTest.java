@@ -0,0 +1,42 @@
+package com.inventory.service;
+
+import com.inventory.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitServiceTest {
+    
+    private static RateLimitService service(Duration period) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMaxKeys(2);
+        properties.setIp(new HashMap<>(Map.of("login", new RateLimitProperties.Limit(1, period))));
+        return new RateLimitService(properties, new SimpleMeterRegistry());
+    }
+    
+    @Test
+    void rejectsNewKeysInsteadOfEvictingBucketsThatAreStillThrottling() {
+        RateLimitService service = service(Duration.ofHours(1));
+        assertThat(service.tryAcquire("login", RateLimitService.BY_IP, "10.0.0.1")).isZero();
+        assertThat(service.tryAcquire("login", RateLimitService.BY_IP, "10.0.0.2")).isZero();
+        
+        assertThat(service.tryAcquire("login", RateLimitService.BY_IP, "10.0.0.3")).isPositive();
+        assertThat(service.tryAcquire("login", RateLimitService.BY_IP, "10.0.0.1")).isPositive();
+        assertThat(service.tryAcquire("login", RateLimitService.BY_IP, "10.0.0.2")).isPositive();
+    }
+    
+    @Test
+    void evictsRefilledBucketsToAdmitNewKeys() throws InterruptedException {
+        RateLimitService service = service(Duration.ofMillis(20));
+        assertThat(service.tryAcquire("login", RateLimitService.BY_IP, "10.0.0.1")).isZero();
+        assertThat(service.tryAcquire("login", RateLimitService.BY_IP, "10.0.0.2")).isZero();
+        Thread.sleep(50);
+        
+        assertThat(service.tryAcquire("login", RateLimitService.BY_IP, "10.0.0.3")).isZero();
+    }
+}
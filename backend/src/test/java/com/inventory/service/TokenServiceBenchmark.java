@@ -0,0 +1,69 @@
+package com.inventory.service;
+
+import com.inventory.util.JwtPrincipal;
+import com.inventory.util.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of bearer token authentication: a cache hit, a single verified parse, and
+ * the former one-parse-per-claim path. Not run by the test suite; after {@code mvn test-compile}
+ * run {@link #main} with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenServiceBenchmark {
+    
+    private JwtUtil jwtUtil;
+    private TokenService tokenService;
+    private String token;
+    
+    @Setup
+    public void setUp() {
+        jwtUtil = TokenServiceTest.newJwtUtil();
+        tokenService = TokenServiceTest.newTokenService(jwtUtil);
+        token = jwtUtil.generateToken("staff@example.com", "STAFF", 7L);
+        tokenService.authenticate(token);
+    }
+    
+    @Benchmark
+    public JwtPrincipal cachedAuthenticate() {
+        return tokenService.authenticate(token);
+    }
+    
+    @Benchmark
+    public JwtPrincipal singleParse() {
+        return jwtUtil.parseToken(token);
+    }
+    
+    @Benchmark
+    public void parsePerClaim(Blackhole blackhole) {
+        blackhole.consume(jwtUtil.validateToken(token, jwtUtil.extractEmail(token)));
+        blackhole.consume(jwtUtil.extractRole(token));
+        blackhole.consume(jwtUtil.extractUserId(token));
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TokenServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,115 @@
+package com.inventory.service;
+
+import com.inventory.filter.JwtAuthenticationFilter;
+import com.inventory.repository.UserRepository;
+import com.inventory.util.JwtPrincipal;
+import com.inventory.util.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class TokenServiceTest {
+    
+    private JwtUtil jwtUtil;
+    private TokenService tokenService;
+    private JwtAuthenticationFilter filter;
+    
+    @BeforeEach
+    void setUp() {
+        jwtUtil = spy(newJwtUtil());
+        tokenService = newTokenService(jwtUtil);
+        filter = new JwtAuthenticationFilter(tokenService);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+    
+    @Test
+    void verifiesEachTokenOnceAcrossRequests() throws Exception {
+        String token = jwtUtil.generateToken("staff@example.com", "STAFF", 7L);
+        
+        for (int i = 0; i < 3; i++) {
+            Authentication authentication = authenticate(token);
+            assertThat(authentication.getName()).isEqualTo("staff@example.com");
+            assertThat(((JwtPrincipal) authentication.getPrincipal()).getUserId()).isEqualTo(7L);
+        }
+        
+        // One signature check for the first request, none for the cached ones, and the
+        // claims come from that single parse rather than one extraction per claim
+        verify(jwtUtil, times(1)).parseToken(token);
+        verify(jwtUtil, never()).extractClaim(anyString(), any());
+    }
+    
+    @Test
+    void cachedSignatureDoesNotVouchForAnotherPayload() throws Exception {
+        String token = jwtUtil.generateToken("staff@example.com", "STAFF", 7L);
+        authenticate(token);
+        
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + jwtUtil.generateToken("admin@example.com", "ADMIN", 1L).split("\\.")[1]
+                + "." + parts[2];
+        
+        assertThat(authenticate(forged)).isNull();
+        verify(jwtUtil, times(1)).parseToken(forged);
+    }
+    
+    @Test
+    void reusesTheSigningKeyAndParser() {
+        try (MockedStatic<Jwts> jwts = mockStatic(Jwts.class, CALLS_REAL_METHODS);
+             MockedStatic<Keys> keys = mockStatic(Keys.class, CALLS_REAL_METHODS)) {
+            for (int i = 0; i < 5; i++) {
+                String token = jwtUtil.generateToken("user" + i + "@example.com", "CUSTOMER", (long) i);
+                assertThat(tokenService.authenticate(token).getUserId()).isEqualTo(i);
+            }
+            
+            jwts.verify(Jwts::parser, never());
+            keys.verify(() -> Keys.hmacShaKeyFor(any()), never());
+        }
+    }
+    
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+    
+    static JwtUtil newJwtUtil() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "test-secret-that-is-long-enough-for-hmac-sha-256");
+        ReflectionTestUtils.setField(jwtUtil, "accessExpiration", 900000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        return jwtUtil;
+    }
+    
+    static TokenService newTokenService(JwtUtil jwtUtil) {
+        TokenService tokenService = new TokenService(jwtUtil, mock(UserRepository.class));
+        ReflectionTestUtils.setField(tokenService, "cacheSize", 10000);
+        ReflectionTestUtils.setField(tokenService, "revocationFilterSize", 10000);
+        tokenService.init();
+        return tokenService;
+    }
+}
@@ -91,16 +91,7 @@ export default function ProfilePictureUpload({
         >
           <img
             key={`avatar-${imageKey}-${currentAvatarUrl?.split('?')[0]}`} // Force re-render when key or URL changes
-            src={(() => {
-              if (!currentAvatarUrl) {
-                return `https://ui-avatars.com/api/?background=random&name=${encodeURIComponent(userName)}`;
-              }
-              // Remove any existing query params and add fresh cache-busting
-              const baseUrl = currentAvatarUrl.split('?')[0];
-              // Use both timestamp and key for maximum cache-busting
-              const timestamp = Date.now();
-              return `${baseUrl}?v=${timestamp}&k=${imageKey}&t=${timestamp}`;
-            })()}
+            src={currentAvatarUrl || `https://ui-avatars.com/api/?background=random&name=${encodeURIComponent(userName)}`}
             alt={userName}
             className="w-32 h-32 rounded-3xl object-cover shadow-sticker-lg border-4 border-white/80 dark:border-slate-800/80"
             onLoad={() => {
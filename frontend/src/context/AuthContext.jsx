@@ -25,6 +25,7 @@ export const AuthProvider = ({ children }) => {
       console.error('Failed to parse user from localStorage', error);
       localStorage.removeItem('user');
       localStorage.removeItem('token');
+      localStorage.removeItem('refreshToken');
     } finally {
       setLoading(false);
     }
@@ -33,8 +34,9 @@ export const AuthProvider = ({ children }) => {
   const login = async (email, password) => {
     try {
       const response = await api.post('/auth/login', { email, password });
-      const { token, ...userData } = response.data;
+      const { token, refreshToken, expiresIn, ...userData } = response.data;
       localStorage.setItem('token', token);
+      localStorage.setItem('refreshToken', refreshToken);
       localStorage.setItem('user', JSON.stringify(userData));
       setUser(userData);
       return { success: true };
@@ -46,8 +48,9 @@ export const AuthProvider = ({ children }) => {
   const register = async (userData) => {
     try {
       const response = await api.post('/auth/register', userData);
-      const { token, ...user } = response.data;
+      const { token, refreshToken, expiresIn, ...user } = response.data;
       localStorage.setItem('token', token);
+      localStorage.setItem('refreshToken', refreshToken);
       localStorage.setItem('user', JSON.stringify(user));
       setUser(user);
       return { success: true };
@@ -57,7 +60,11 @@ export const AuthProvider = ({ children }) => {
   };
 
   const logout = () => {
+    // Revoke both tokens server-side; local state is cleared regardless of the outcome
+    const refreshToken = localStorage.getItem('refreshToken');
+    api.post('/auth/logout', refreshToken ? { refreshToken } : undefined).catch(() => {});
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
     localStorage.removeItem('user');
     setUser(null);
   };
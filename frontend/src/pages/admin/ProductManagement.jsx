@@ -176,7 +176,7 @@ export default function ProductManagement() {
           <motion.div key={product.id} className="rounded-3xl border border-slate-100 p-4" whileHover={{ y: -4 }}>
             <div className="relative aspect-[4/3] w-full overflow-hidden rounded-2xl mb-2">
               <img
-                src={product.imageUrls?.[0] || '/placeholder.png'}
+                src={product.images?.[0]?.thumb || product.imageUrls?.[0] || '/placeholder.png'}
                 alt={product.name}
                 className="w-full h-full object-cover object-center"
                 onError={(e) => {
@@ -1,10 +1,22 @@
-import { useEffect, useState } from 'react';
+import { useEffect, useRef, useState } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { motion, AnimatePresence } from 'framer-motion';
 import api from '../../utils/api';
 import { useToast } from '../../context/ToastContext';
 import CheckoutModal from '../../components/modals/CheckoutModal';
 
+// crypto.randomUUID only exists in secure contexts (HTTPS or localhost)
+const newIdempotencyKey = () => {
+  if (crypto.randomUUID) {
+    return crypto.randomUUID();
+  }
+  const bytes = crypto.getRandomValues(new Uint8Array(16));
+  bytes[6] = (bytes[6] & 0x0f) | 0x40;
+  bytes[8] = (bytes[8] & 0x3f) | 0x80;
+  const hex = Array.from(bytes, (b) => b.toString(16).padStart(2, '0')).join('');
+  return `${hex.slice(0, 8)}-${hex.slice(8, 12)}-${hex.slice(12, 16)}-${hex.slice(16, 20)}-${hex.slice(20)}`;
+};
+
 const EmptyState = () => (
   <motion.div
     initial={{ opacity: 0, scale: 0.95 }}
@@ -32,6 +44,8 @@ export default function Cart() {
   const [loading, setLoading] = useState(true);
   const [checkoutLoading, setCheckoutLoading] = useState(false);
   const [showCheckoutModal, setShowCheckoutModal] = useState(false);
+  // One key per checkout attempt; resubmitting after a timeout reuses it so the order is placed once
+  const checkoutKeyRef = useRef(null);
   const navigate = useNavigate();
   const addToast = useToast();
 
@@ -71,6 +85,7 @@ export default function Cart() {
   };
 
   const handleCheckout = () => {
+    checkoutKeyRef.current = newIdempotencyKey();
     setShowCheckoutModal(true);
   };
 
@@ -82,6 +97,8 @@ export default function Cart() {
         phoneNumber: formData.phoneNumber,
         specialInstructions: formData.specialInstructions,
         preferredDeliveryDate: formData.preferredDeliveryDate,
+      }, {
+        headers: { 'Idempotency-Key': checkoutKeyRef.current },
       });
       addToast({ type: 'success', message: 'Order placed successfully' });
       setShowCheckoutModal(false);
@@ -139,7 +156,7 @@ export default function Cart() {
                     <div className="flex flex-col sm:flex-row gap-6">
                       <div className="relative w-full sm:w-32 aspect-square overflow-hidden rounded-xl">
                         <motion.img
-                          src={item.productImage || '/placeholder.png'}
+                          src={item.productImageVariants?.thumb || item.productImage || '/placeholder.png'}
                           alt={item.productName}
                           className="w-full h-full object-cover object-center"
                           whileHover={{ scale: 1.05 }}
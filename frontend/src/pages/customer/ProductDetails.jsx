@@ -87,7 +87,7 @@ export default function ProductDetails() {
       <div className="grid gap-8 md:grid-cols-2">
         <motion.div initial={{ opacity: 0, x: -20 }} animate={{ opacity: 1, x: 0 }}>
           <ProductImageCarousel
-            images={product.imageUrls || []}
+            images={product.images?.map((image) => image.full) || product.imageUrls || []}
             productName={product.name}
             autoRotate={true}
             rotationInterval={2000}
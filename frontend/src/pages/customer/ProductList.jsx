@@ -112,7 +112,7 @@ export default function ProductList() {
             >
               <div className="relative aspect-[4/3] w-full overflow-hidden bg-gradient-to-br from-slate-100 to-slate-200 dark:from-slate-800 dark:to-slate-900">
                 <img
-                  src={product.imageUrls?.[0] || '/placeholder.png'}
+                  src={product.images?.[0]?.card || product.imageUrls?.[0] || '/placeholder.png'}
                   alt={product.name}
                   className="w-full h-full object-cover object-center"
                   style={{
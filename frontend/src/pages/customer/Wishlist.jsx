@@ -100,7 +100,7 @@ export default function Wishlist() {
                   <Link to={`/products/${item.productId}`} className="block">
                     <div className="relative overflow-hidden">
                       <motion.img
-                        src={item.productImage || '/placeholder.png'}
+                        src={item.productImageVariants?.thumb || item.productImage || '/placeholder.png'}
                         alt={item.productName}
                         className="w-full h-48 object-cover"
                         whileHover={{ scale: 1.1 }}
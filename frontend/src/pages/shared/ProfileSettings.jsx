@@ -94,20 +94,8 @@ export default function ProfileSettings() {
       
       // Update profile state immediately with new avatar URL from response
       if (response?.user) {
-        // Get the base URL without any existing query parameters
-        const baseUrl = response.user.avatarUrl?.split('?')[0] || response.user.avatarUrl;
-        // Add cache-busting timestamp - use a unique timestamp
-        const timestamp = Date.now();
-        const newAvatarUrl = baseUrl 
-          ? `${baseUrl}?v=${timestamp}`
-          : response.user.avatarUrl;
-        
-        // Update profile state immediately - create new object to force React update
-        const updatedProfile = {
-          ...response.user,
-          avatarUrl: newAvatarUrl,
-          _updated: timestamp // Add a flag to force re-render
-        };
+        // Avatar URLs carry a content hash, so a new upload always has a new URL
+        const updatedProfile = { ...response.user };
         
         // Force state update
         setProfile({ ...updatedProfile });
@@ -127,18 +115,7 @@ export default function ProfileSettings() {
         try {
           const freshData = await getProfile();
           if (freshData?.user) {
-            const freshBaseUrl = freshData.user.avatarUrl?.split('?')[0] || freshData.user.avatarUrl;
-            const freshTimestamp = Date.now();
-            const freshAvatarUrl = freshBaseUrl 
-              ? `${freshBaseUrl}?v=${freshTimestamp}`
-              : freshData.user.avatarUrl;
-            
-            // Force update with new timestamp
-            setProfile({
-              ...freshData.user,
-              avatarUrl: freshAvatarUrl,
-              _updated: freshTimestamp
-            });
+            setProfile({ ...freshData.user });
           }
         } catch (error) {
           console.error('Failed to reload profile:', error);
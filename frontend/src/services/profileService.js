@@ -23,8 +23,9 @@ export const updateSettings = async (payload) => {
  * 
  * Uses the same approach as product image upload:
  * 1. Uploads file to backend /profile/avatar endpoint
- * 2. Backend saves file to uploads/avatars/{userId}/ directory
- * 3. Backend returns profile with avatarUrl pointing to /api/images/avatars/{userId}/avatar.{ext}
+ * 2. Backend crops it square and saves avatar-{size}.jpg files to uploads/avatars/{userId}/
+ * 3. Backend returns profile with avatarUrl pointing to the largest size and avatarVariants
+ *    mapping each size (e.g. 64, 128, 256) to its URL
  */
 export const uploadProfilePicture = async (file) => {
   // Validate file type